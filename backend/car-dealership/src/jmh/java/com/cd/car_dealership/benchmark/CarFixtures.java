@@ -0,0 +1,62 @@
+package com.cd.car_dealership.benchmark;
+
+import com.cd.car_dealership.model.Car;
+import com.cd.car_dealership.model.ImageInfo;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic in-memory cars for the JMH suites; the same seed always yields the same inventory.
+ */
+public final class CarFixtures {
+
+	private static final String[] BRANDS = {"BMW", "Audi", "Mercedes", "Volkswagen", "Toyota", "Ford", "Skoda", "Hyundai", "Kia", "Volvo"};
+	private static final String[] FUEL_TYPES = {"Diesel", "Gasoline", "Hybrid", "Electric"};
+	private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+	private CarFixtures() {
+	}
+
+	public static Car[] cars(int count, int imagesPerCar, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		Car[] cars = new Car[count];
+		long imageId = 1;
+		for (int i = 0; i < count; i++) {
+			Car car = Car.builder()
+					.id((long) i + 1)
+					.brand(BRANDS[random.nextInt(BRANDS.length)])
+					.model("Model " + random.nextInt(500))
+					.productionYear(1995 + random.nextInt(30))
+					.price(BigDecimal.valueOf(5000 + random.nextInt(200000)))
+					.fuelType(FUEL_TYPES[random.nextInt(FUEL_TYPES.length)])
+					.mileage(random.nextInt(300000))
+					.engineCapacity((10 + random.nextInt(40)) / 10.0)
+					.transmission(random.nextBoolean() ? "Manual" : "Automatic")
+					.description("Generated benchmark car " + i)
+					.createdAt(EPOCH.plusSeconds(i))
+					.updatedAt(EPOCH.plusSeconds(i))
+					.build();
+			List<ImageInfo> gallery = new ArrayList<>(imagesPerCar);
+			for (int j = 0; j < imagesPerCar; j++) {
+				String publicId = "car-dealership/" + Long.toHexString(random.nextLong());
+				gallery.add(ImageInfo.builder()
+						.id(imageId++)
+						.car(car)
+						.imageUrl(cloudinaryUrl(publicId))
+						.publicId(publicId)
+						.build());
+			}
+			car.setImageGallery(gallery);
+			cars[i] = car;
+		}
+		return cars;
+	}
+
+	public static String cloudinaryUrl(String publicId) {
+		return "https://res.cloudinary.com/demo/image/upload/v1712345678/" + publicId + ".jpg";
+	}
+}
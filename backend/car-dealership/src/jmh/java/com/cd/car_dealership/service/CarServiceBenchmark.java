@@ -0,0 +1,55 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.benchmark.CarFixtures;
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.model.Car;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO conversion and gallery URL extraction over a generated inventory.
+ * Each invocation handles the next car of the fixture, so larger inventories also show cache effects.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CarServiceBenchmark {
+
+	@Param({"10000", "100000", "1000000"})
+	private int carCount;
+
+	@Param({"5"})
+	private int imagesPerCar;
+
+	private Car[] cars;
+	private CarService carService;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		cars = CarFixtures.cars(carCount, imagesPerCar, 42L);
+		// convertToDTO touches none of the collaborators
+		carService = new CarService(null, null, null, null, null, null, null, null, null);
+	}
+
+	@Benchmark
+	public CarDTO convertToDTO() {
+		return carService.convertToDTO(nextCar());
+	}
+
+	@Benchmark
+	public List<String> getImageUrls() {
+		return nextCar().getImageUrls();
+	}
+
+	private Car nextCar() {
+		Car car = cars[next];
+		next = next + 1 == cars.length ? 0 : next + 1;
+		return car;
+	}
+}
@@ -0,0 +1,41 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.benchmark.CarFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CloudinaryServiceBenchmark {
+
+	private static final int URL_COUNT = 10_000;
+
+	private CloudinaryService cloudinaryService;
+	private String[] urls;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		// extractPublicIdFromUrl is pure string handling; no Cloudinary client is needed
+		cloudinaryService = new CloudinaryService(new SimpleMeterRegistry());
+		SplittableRandom random = new SplittableRandom(42L);
+		urls = new String[URL_COUNT];
+		for (int i = 0; i < URL_COUNT; i++) {
+			urls[i] = CarFixtures.cloudinaryUrl("car-dealership/" + Long.toHexString(random.nextLong()));
+		}
+	}
+
+	@Benchmark
+	public String extractPublicIdFromUrl() {
+		String url = urls[next];
+		next = next + 1 == urls.length ? 0 : next + 1;
+		return cloudinaryService.extractPublicIdFromUrl(url);
+	}
+}
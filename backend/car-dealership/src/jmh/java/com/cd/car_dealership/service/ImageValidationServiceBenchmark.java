@@ -0,0 +1,65 @@
+package com.cd.car_dealership.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of an accepted upload and of uploads rejected by name, by content and by pixel dimensions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageValidationServiceBenchmark {
+
+	private ImageValidationService imageValidationService;
+	private MultipartFile validImage;
+	private MultipartFile rejectedImage;
+	private MultipartFile fakeImage;
+	private MultipartFile oversizedImage;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		imageValidationService = new ImageValidationService();
+		byte[] content = new byte[512 * 1024];
+		validImage = new MockMultipartFile("file", "car.jpg", "image/jpeg", jpeg(1600, 1200));
+		rejectedImage = new MockMultipartFile("file", "car.exe", "application/octet-stream", content);
+		fakeImage = new MockMultipartFile("file", "car.jpg", "image/jpeg", content);
+		oversizedImage = new MockMultipartFile("file", "car.jpg", "image/jpeg", jpeg(6000, 4000));
+	}
+
+	@Benchmark
+	public boolean validateAccepted() {
+		return imageValidationService.isValidImageFile(validImage);
+	}
+
+	@Benchmark
+	public boolean validateRejected() {
+		return imageValidationService.isValidImageFile(rejectedImage);
+	}
+
+	@Benchmark
+	public boolean validateRejectedContent() {
+		return imageValidationService.isValidImageFile(fakeImage);
+	}
+
+	@Benchmark
+	public boolean validateRejectedDimensions() {
+		return imageValidationService.isValidImageFile(oversizedImage);
+	}
+
+	private static byte[] jpeg(int width, int height) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,76 @@
+package com.cd.car_dealership.service;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing and verification as seen by AuthFilter: a verify of a token the service has seen
+ * before (cache hit) and of a token it has not (full HMAC check and claims parsing).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+	private static final int TOKEN_COUNT = 10_000;
+
+	private JwtService jwtService;
+	// Holds a single entry, so cycling through the tokens misses the cache on every call
+	private JwtService uncachedJwtService;
+	private String[] tokens;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		jwtService = newJwtService(TOKEN_COUNT * 2);
+		uncachedJwtService = newJwtService(1);
+		tokens = new String[TOKEN_COUNT];
+		for (int i = 0; i < TOKEN_COUNT; i++) {
+			tokens[i] = jwtService.generateToken("user" + i, Map.of("role", i % 10 == 0 ? "ADMIN" : "USER"));
+		}
+	}
+
+	@Benchmark
+	public String generateToken() {
+		return jwtService.generateToken("admin", Map.of("role", "ADMIN"));
+	}
+
+	@Benchmark
+	public Optional<Claims> verifyCached() {
+		return jwtService.verify(nextToken());
+	}
+
+	@Benchmark
+	public Optional<Claims> verifyUncached() {
+		return uncachedJwtService.verify(nextToken());
+	}
+
+	private String nextToken() {
+		String token = tokens[next];
+		next = next + 1 == tokens.length ? 0 : next + 1;
+		return token;
+	}
+
+	static JwtService newJwtService(int cacheSize) {
+		JwtService jwtService = new JwtService(new SimpleMeterRegistry());
+		byte[] secret = new byte[64];
+		for (int i = 0; i < secret.length; i++) {
+			secret[i] = (byte) i;
+		}
+		ReflectionTestUtils.setField(jwtService, "secret", Base64.getEncoder().encodeToString(secret));
+		ReflectionTestUtils.setField(jwtService, "expirationMs", 3_600_000L);
+		ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", cacheSize);
+		jwtService.init();
+		return jwtService;
+	}
+}
@@ -2,8 +2,12 @@ package com.cd.car_dealership;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+// R2DBC is wired by ReactiveCatalogConfig only when the reactive catalogue is enabled. Boot's own
+// configuration would demand spring.r2dbc.url and add a second transaction manager next to JPA's.
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 public class CarDealershipApplication {
 
 	public static void main(String[] args) {
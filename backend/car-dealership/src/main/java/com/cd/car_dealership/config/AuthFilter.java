@@ -1,6 +1,7 @@
 package com.cd.car_dealership.config;
 
 import com.cd.car_dealership.service.JwtService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,6 +15,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Optional;
 
 @Component
 public class AuthFilter extends OncePerRequestFilter {
@@ -30,9 +32,11 @@ public class AuthFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
             
-            if (jwtService.isTokenValid(token)) {
-                String username = jwtService.extractUsername(token);
-                String role = jwtService.extractRole(token);
+            // Single verification per request; claims are reused for username and role
+            Optional<Claims> claims = jwtService.verify(token);
+            if (claims.isPresent()) {
+                String username = claims.get().getSubject();
+                String role = jwtService.extractRole(claims.get());
                 
                 if ("ADMIN".equals(role)) {
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
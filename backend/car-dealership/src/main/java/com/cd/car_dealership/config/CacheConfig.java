@@ -0,0 +1,45 @@
+package com.cd.car_dealership.config;
+
+import com.cd.car_dealership.dto.CarPageDTO;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    // Car details by id
+    public static final String CARS = "cars";
+    // Pages of the inventory list (CarService.getCarsPage); the unpaged list is never cached
+    public static final String CAR_LISTS = "carLists";
+    
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.cars.maximum-size:10000}") long maximumSize,
+                                     @Value("${cache.cars.ttl:10m}") Duration ttl,
+                                     @Value("${cache.car-pages.maximum-cars:2000}") long maximumPagedCars) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        // recordStats feeds the cache.gets{result=hit|miss} and cache.evictions meters
+        caffeineCacheManager.registerCustomCache(CARS, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+        // Bounded by the number of cars held across all cached pages, not by the number of pages
+        caffeineCacheManager.registerCustomCache(CAR_LISTS, Caffeine.newBuilder()
+                .maximumWeight(maximumPagedCars)
+                .weigher((Object key, Object page) -> Math.max(1, ((CarPageDTO) page).getItems().size()))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+        // Evictions inside a transaction are applied after commit, so readers cannot re-cache pre-commit rows
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
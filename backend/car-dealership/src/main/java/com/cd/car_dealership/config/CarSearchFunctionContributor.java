@@ -0,0 +1,39 @@
+package com.cd.car_dealership.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.dialect.function.SqlColumn;
+import org.hibernate.type.StandardBasicTypes;
+
+// Full-text functions used by CarSearchRepositoryImpl for the free-text "q" filter, registered through
+// META-INF/services. They read the stored cars.search_document column (db/migration/V4), which is not
+// mapped on Car so loading a car never transfers the tsvector; ranking reads the stored document
+// instead of running to_tsvector for every matching row.
+// Only PostgreSQL gets them; CarSearchRepositoryImpl falls back to substring matching elsewhere.
+public class CarSearchFunctionContributor implements FunctionContributor {
+
+    // car_search_document(any column of cars) renders <alias of that table>.search_document
+    public static final String DOCUMENT = "car_search_document";
+    // ?1 document, ?2 tsquery text
+    public static final String MATCHES = "car_search_matches";
+    public static final String RANK = "car_search_rank";
+
+    // Generated column holding brand and model (weight A) and description (weight B)
+    public static final String DOCUMENT_COLUMN = "search_document";
+    // ?1 tsquery text. Also expanded into plain SQL by ReactiveCarRepository.
+    public static final String QUERY = "to_tsquery('simple', ?1)";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        if (!(functionContributions.getDialect() instanceof PostgreSQLDialect)) {
+            return;
+        }
+        var types = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+        var functions = functionContributions.getFunctionRegistry();
+        functions.register(DOCUMENT, new SqlColumn(DOCUMENT_COLUMN, null));
+        String query = QUERY.replace("?1", "?2");
+        functions.registerPattern(MATCHES, "?1 @@ " + query, types.resolve(StandardBasicTypes.BOOLEAN));
+        functions.registerPattern(RANK, "ts_rank(?1, " + query + ")", types.resolve(StandardBasicTypes.DOUBLE));
+    }
+}
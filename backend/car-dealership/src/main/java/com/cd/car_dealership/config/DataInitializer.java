@@ -5,11 +5,13 @@ import com.cd.car_dealership.model.User;
 import com.cd.car_dealership.repository.CarRepository;
 import com.cd.car_dealership.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class DataInitializer implements CommandLineRunner {
@@ -151,6 +153,6 @@ public class DataInitializer implements CommandLineRunner {
                 .role("ADMIN")
                 .build();
         userRepository.save(admin);
-        System.out.println("Admin user initialized successfully!");
+        log.info("Admin user initialized");
     }
 } 
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.cd.car_dealership.config;
+
+import com.cd.car_dealership.service.ImageStore;
+import com.cd.car_dealership.service.ResilientImageStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+
+@Configuration
+public class ImageStoreConfig {
+    
+    // Qualifies the backend selected by image.store (Cloudinary, local or stub); everything else
+    // injects the primary ImageStore, which isolates calls to that backend
+    public static final String BACKEND = "imageStoreBackend";
+    
+    @Bean(destroyMethod = "shutdown")
+    @Primary
+    public ResilientImageStore resilientImageStore(@Qualifier(BACKEND) ImageStore backend,
+                                                   MeterRegistry meterRegistry,
+                                                   @Value("${image.store.io.concurrency:16}") int concurrency,
+                                                   @Value("${image.store.io.queue-capacity:64}") int queueCapacity,
+                                                   @Value("${image.store.io.timeout:60s}") Duration timeout,
+                                                   @Value("${image.store.circuit.failure-threshold:5}") int failureThreshold,
+                                                   @Value("${image.store.circuit.open-duration:30s}") Duration openDuration) {
+        return new ResilientImageStore(backend, concurrency, queueCapacity, timeout,
+                failureThreshold, openDuration, meterRegistry);
+    }
+}
@@ -0,0 +1,117 @@
+package com.cd.car_dealership.config;
+
+import com.cd.car_dealership.controller.ReactiveCatalogHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+// Optional non-blocking read stack for the public catalogue (catalog.reactive.enabled=true). It runs next
+// to the servlet application on its own port: a Reactor Netty server whose few event-loop threads serve
+// ReactiveCatalogHandler, with queries going through a separate R2DBC connection pool. Writes, admin
+// endpoints and everything else stay on the Tomcat server.
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool catalogConnectionFactory(@Value("${catalog.reactive.r2dbc.url}") String url,
+                                                   @Value("${catalog.reactive.r2dbc.username:${spring.datasource.username:}}") String username,
+                                                   @Value("${catalog.reactive.r2dbc.password:${spring.datasource.password:}}") String password,
+                                                   @Value("${catalog.reactive.r2dbc.pool-size:10}") int poolSize,
+                                                   @Value("${catalog.reactive.r2dbc.max-acquire-time:5s}") Duration maxAcquireTime) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (!username.isEmpty()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (!password.isEmpty()) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        // A handful of connections serves many concurrent streams; callers wait at most maxAcquireTime for one
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .name("catalog")
+                .initialSize(Math.min(2, poolSize))
+                .maxSize(poolSize)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient catalogDatabaseClient(ConnectionFactory catalogConnectionFactory) {
+        return DatabaseClient.create(catalogConnectionFactory);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public LoopResources catalogEventLoops(@Value("${catalog.reactive.event-loop-threads:0}") int threads) {
+        return LoopResources.create("catalog-event-loop", threads > 0 ? threads : LoopResources.DEFAULT_IO_WORKER_COUNT, true);
+    }
+
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer catalogServer(ReactiveCatalogHandler handler,
+                                          ObjectMapper objectMapper,
+                                          LoopResources catalogEventLoops,
+                                          @Value("${catalog.reactive.port:8082}") int port) {
+        // The application's ObjectMapper, so cars serialize exactly as they do from CarController
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler httpHandler = WebHttpHandlerBuilder
+                .webHandler(RouterFunctions.toWebHandler(handler.routes(), strategies))
+                .filter(new CorsWebFilter(corsConfigurationSource()))
+                .exceptionHandlers(exceptionHandlers -> exceptionHandlers.addAll(strategies.exceptionHandlers()))
+                .build();
+
+        DisposableServer server = HttpServer.create()
+                .port(port)
+                .runOn(catalogEventLoops)
+                .compress(true)
+                // reactor.netty.http.server.* meters, with car ids folded into one URI tag
+                .metrics(true, uri -> uri.replaceFirst("^/api/cars/\\d+$", "/api/cars/{id}"))
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("Reactive catalogue listening on port {}", server.port());
+        return server;
+    }
+
+    // Read-only counterpart of SecurityConfig's CORS policy
+    private UrlBasedCorsConfigurationSource corsConfigurationSource() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration.setAllowedOrigins(Arrays.asList("http://localhost:5173", "http://localhost:4200"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "OPTIONS"));
+        configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setAllowCredentials(true);
+        configuration.setMaxAge(3600L);
+
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", configuration);
+        return source;
+    }
+}
@@ -0,0 +1,71 @@
+package com.cd.car_dealership.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Adds a repository.rows summary to every Spring Data repository. Invocation latency is already
+// recorded by Spring Boot as spring.data.repository.invocations.
+@RequiredArgsConstructor
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+    
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                            new RowCountingInterceptor(repositoryInformation.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+    
+    private class RowCountingInterceptor implements MethodInterceptor {
+        
+        private final String repository;
+        
+        RowCountingInterceptor(String repository) {
+            this.repository = repository;
+        }
+        
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Object result = invocation.proceed();
+            String method = invocation.getMethod().getName();
+            
+            if (result instanceof Stream<?> stream) {
+                // Rows are only known once the caller has consumed and closed the stream
+                long[] rows = new long[1];
+                return stream.peek(row -> rows[0]++).onClose(() -> record(method, rows[0]));
+            }
+            if (result instanceof Collection<?> collection) {
+                record(method, collection.size());
+            } else if (result instanceof Slice<?> slice) {
+                record(method, slice.getNumberOfElements());
+            } else if (result instanceof Optional<?> optional) {
+                record(method, optional.isPresent() ? 1 : 0);
+            }
+            return result;
+        }
+        
+        private void record(String method, long rows) {
+            DistributionSummary.builder("repository.rows")
+                    .description("Rows returned by repository methods")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .register(meterRegistry.getObject())
+                    .record(rows);
+        }
+    }
+}
@@ -38,12 +38,20 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.GET, "/api/cars/search").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/cars/brands").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/cars/fuel-types").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/cars/facets").permitAll()
+                // Must precede /api/cars/{id}, which would otherwise match "export"
+                .requestMatchers(HttpMethod.GET, "/api/cars/export").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.GET, "/api/cars/{id}").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/images/**").permitAll()
+                // Monitoring (management port)
+                .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
                 // Admin endpoints
                 .requestMatchers(HttpMethod.POST, "/api/cars").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/cars/import").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.PUT, "/api/cars/{id}").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.DELETE, "/api/cars/{id}").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.POST, "/api/cars/{id}/gallery").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/cars/{id}/gallery/batch").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.DELETE, "/api/cars/{id}/gallery").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
@@ -0,0 +1,23 @@
+package com.cd.car_dealership.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Counts the SQL statements Hibernate prepares on the current thread; read by StatementMetricsFilter
+public class StatementCountingInspector implements StatementInspector {
+    
+    private static final ThreadLocal<int[]> STATEMENTS = ThreadLocal.withInitial(() -> new int[1]);
+    
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get()[0]++;
+        return sql;
+    }
+    
+    static void reset() {
+        STATEMENTS.get()[0] = 0;
+    }
+    
+    static int current() {
+        return STATEMENTS.get()[0];
+    }
+}
@@ -1,36 +1,119 @@
 package com.cd.car_dealership.controller;
 
 import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.dto.CarImportResultDTO;
+import com.cd.car_dealership.dto.CarPageDTO;
+import com.cd.car_dealership.dto.CarSearchCriteria;
+import com.cd.car_dealership.dto.GalleryUploadDTO;
+import com.cd.car_dealership.dto.InventoryFacetsDTO;
 import com.cd.car_dealership.service.CarService;
+import com.cd.car_dealership.service.CarTransferService;
+import com.cd.car_dealership.service.InventoryVersion;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/cars")
 @RequiredArgsConstructor
 public class CarController {
     
     private final CarService carService;
+    private final CarTransferService carTransferService;
+    private final InventoryVersion inventoryVersion;
+
+    // How long a CDN may serve inventory reads without revalidating; browsers always revalidate
+    @Value("${http.cache.shared-max-age-seconds:0}")
+    private long sharedMaxAgeSeconds;
 
     @GetMapping
-    public ResponseEntity<List<CarDTO>> getAllCars() {
-        List<CarDTO> cars = carService.getAllCars();
-        return ResponseEntity.ok(cars);
+    public ResponseEntity<List<CarDTO>> getAllCars(WebRequest request) {
+        return conditional(request, () -> {
+            List<CarDTO> cars = carService.getAllCars();
+            return ResponseEntity.ok(cars);
+        });
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<CarPageDTO> getCarsPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
+        return conditional(request, () -> {
+            try {
+                return ResponseEntity.ok(carService.getCarsPage(cursor, limit));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
+    }
+
+    @GetMapping(params = {"stream=true", "!limit"})
+    public ResponseEntity<StreamingResponseBody> streamAllCars() {
+        // One JSON document per line, written as rows come off the database cursor
+        StreamingResponseBody body = outputStream ->
+                carTransferService.exportCars(CarTransferService.Format.NDJSON, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportCars(@RequestParam(defaultValue = "csv") String format) {
+        CarTransferService.Format exportFormat;
+        try {
+            exportFormat = CarTransferService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = outputStream -> carTransferService.exportCars(exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("cars." + exportFormat.name().toLowerCase())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    // Raw request body rather than multipart, so the upload is parsed as it arrives
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CarImportResultDTO> importCars(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                         InputStream body) throws IOException {
+        return ResponseEntity.ok(carTransferService.importCars(body, CarTransferService.Format.of(contentType)));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CarDTO> getCarById(@PathVariable Long id) {
+    public ResponseEntity<CarDTO> getCarById(@PathVariable Long id, WebRequest request) {
+        // Looked up before the validator is checked: the ETag is shared by the whole inventory, so a client
+        // sending it for an unknown or deleted id must get 404, not 304. Served from the cars cache when warm.
+        InventoryVersion.Snapshot version = inventoryVersion.current();
         Optional<CarDTO> car = carService.getCarById(id);
-        return car.map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        if (car.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return conditional(request, version, () -> ResponseEntity.ok(car.get()));
     }
 
     @PostMapping
@@ -56,58 +139,57 @@ public class CarController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<CarDTO>> searchCars(
-            @RequestParam(required = false) String brand,
-            @RequestParam(required = false) String model,
-            @RequestParam(required = false) String fuelType,
-            @RequestParam(required = false) Integer minYear,
-            @RequestParam(required = false) Integer maxYear,
-            @RequestParam(required = false) BigDecimal minPrice,
-            @RequestParam(required = false) BigDecimal maxPrice,
-            @RequestParam(required = false) Integer minMileage,
-            @RequestParam(required = false) Integer maxMileage,
-            @RequestParam(required = false) Double minEngineCapacity,
-            @RequestParam(required = false) Double maxEngineCapacity) {
-        
-        List<CarDTO> cars = carService.searchCars(
-                brand, model, fuelType,
-                minYear, maxYear,
-                minPrice, maxPrice,
-                minMileage, maxMileage,
-                minEngineCapacity, maxEngineCapacity
-        );
-        return ResponseEntity.ok(cars);
+    public ResponseEntity<List<CarDTO>> searchCars(CarSearchCriteria criteria, WebRequest request) {
+        return conditional(request, () -> {
+            List<CarDTO> cars = carService.searchCars(criteria);
+            return ResponseEntity.ok(cars);
+        });
     }
 
     @GetMapping("/brands")
-    public ResponseEntity<List<String>> getAllBrands() {
-        List<String> brands = carService.getAllBrands();
-        return ResponseEntity.ok(brands);
+    public ResponseEntity<List<String>> getAllBrands(WebRequest request) {
+        return conditional(request, () -> {
+            List<String> brands = carService.getAllBrands();
+            return ResponseEntity.ok(brands);
+        });
     }
 
     @GetMapping("/fuel-types")
-    public ResponseEntity<List<String>> getAllFuelTypes() {
-        List<String> fuelTypes = carService.getAllFuelTypes();
-        return ResponseEntity.ok(fuelTypes);
+    public ResponseEntity<List<String>> getAllFuelTypes(WebRequest request) {
+        return conditional(request, () -> {
+            List<String> fuelTypes = carService.getAllFuelTypes();
+            return ResponseEntity.ok(fuelTypes);
+        });
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<InventoryFacetsDTO> getFacets(WebRequest request) {
+        return conditional(request, () -> ResponseEntity.ok(carService.getFacets()));
     }
 
     @PostMapping("/{id}/gallery")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<CarDTO> addImageToGallery(@PathVariable Long id, @RequestParam("file") MultipartFile file) {
-        System.out.println("CarController: Adding image to gallery for car ID: " + id);
-        System.out.println("CarController: File name: " + file.getOriginalFilename() + ", size: " + file.getSize());
+        log.debug("Adding image {} ({} bytes) to gallery of car {}", file.getOriginalFilename(), file.getSize(), id);
         
         Optional<CarDTO> updatedCar = carService.addImageToGallery(id, file);
         
         if (updatedCar.isPresent()) {
-            System.out.println("CarController: Image added successfully");
             return ResponseEntity.ok(updatedCar.get());
         } else {
-            System.out.println("CarController: Failed to add image - car not found");
+            log.debug("Car {} not found, image not added", id);
             return ResponseEntity.notFound().build();
         }
     }
 
+    @PostMapping("/{id}/gallery/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<GalleryUploadDTO> addImagesToGallery(@PathVariable Long id, @RequestParam("files") List<MultipartFile> files) {
+        Optional<GalleryUploadDTO> result = carService.addImagesToGallery(id, files);
+        return result.map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/{id}/gallery")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<CarDTO> removeImageFromGallery(@PathVariable Long id, @RequestParam("imageUrl") String imageUrl) {
@@ -115,4 +197,35 @@ public class CarController {
         return updatedCar.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
-} 
\ No newline at end of file
+
+    // Every inventory read shares one validator, so If-None-Match / If-Modified-Since are answered
+    // with 304 before the handler runs. checkNotModified also sets ETag and Last-Modified on the response.
+    // Assumes a single instance serves the API: InventoryVersion is per instance (random epoch, local counter),
+    // so behind a load balancer clients would rarely get a 304, and a write on one instance would not change
+    // the validator on the others. Several instances need a shared version, e.g. a row in the database.
+    private <T> ResponseEntity<T> conditional(WebRequest request, Supplier<ResponseEntity<T>> handler) {
+        return conditional(request, inventoryVersion.current(), handler);
+    }
+
+    // The version must be read before the data it validates, so a concurrent write can only make the ETag older
+    private <T> ResponseEntity<T> conditional(WebRequest request, InventoryVersion.Snapshot version,
+                                              Supplier<ResponseEntity<T>> handler) {
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ZERO).mustRevalidate().cachePublic();
+        if (sharedMaxAgeSeconds > 0) {
+            cacheControl = cacheControl.sMaxAge(Duration.ofSeconds(sharedMaxAgeSeconds));
+        }
+        
+        if (request.checkNotModified(version.getEtag(), version.getLastModified().toEpochMilli())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        
+        ResponseEntity<T> response = handler.get();
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .cacheControl(cacheControl)
+                .body(response.getBody());
+    }
+}
@@ -0,0 +1,145 @@
+package com.cd.car_dealership.controller;
+
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.dto.CarSearchCriteria;
+import com.cd.car_dealership.service.InventoryVersion;
+import com.cd.car_dealership.service.ReactiveCatalogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.function.Function;
+
+// Public catalogue reads served by the reactive server (catalog.reactive.enabled, see ReactiveCatalogConfig).
+// Same paths and search parameters as the GET endpoints of CarController, except that ?limit caps the list
+// instead of returning a cursor page. Lists stream one car per line as NDJSON, or as server-sent events when
+// the client accepts text/event-stream; rows are read from the database only as fast as the client consumes them.
+@Component
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveCatalogHandler {
+
+    private static final ParameterizedTypeReference<ServerSentEvent<CarDTO>> CAR_EVENT =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final ReactiveCatalogService reactiveCatalogService;
+    private final InventoryVersion inventoryVersion;
+
+    @Value("${http.cache.shared-max-age-seconds:0}")
+    private long sharedMaxAgeSeconds;
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/api/cars/search", this::searchCars)
+                .GET("/api/cars/{id:\\d+}", this::getCarById)
+                .GET("/api/cars", this::getCars)
+                .build();
+    }
+
+    public Mono<ServerResponse> getCars(ServerRequest request) {
+        return conditional(request, ok -> {
+            Integer limit = param(request, "limit", Integer::valueOf);
+            return stream(request, ok, reactiveCatalogService.getCars(limit));
+        });
+    }
+
+    public Mono<ServerResponse> searchCars(ServerRequest request) {
+        return conditional(request, ok -> stream(request, ok, reactiveCatalogService.searchCars(criteria(request))));
+    }
+
+    public Mono<ServerResponse> getCarById(ServerRequest request) {
+        Long id;
+        try {
+            id = Long.valueOf(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().build();
+        }
+        // Looked up before the validator is checked, so an unknown or deleted id is a 404 and never a 304
+        InventoryVersion.Snapshot version = inventoryVersion.current();
+        return reactiveCatalogService.getCarById(id)
+                .flatMap(car -> conditional(request, version, ok -> ok.contentType(MediaType.APPLICATION_JSON).bodyValue(car)))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    private Mono<ServerResponse> stream(ServerRequest request, ServerResponse.BodyBuilder ok, Flux<CarDTO> cars) {
+        if (request.headers().accept().stream().anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype)) {
+            Flux<ServerSentEvent<CarDTO>> events = cars.map(car -> ServerSentEvent.builder(car)
+                    .id(String.valueOf(car.getId()))
+                    .build());
+            return ok.contentType(MediaType.TEXT_EVENT_STREAM).body(events, CAR_EVENT);
+        }
+        return ok.contentType(MediaType.APPLICATION_NDJSON).body(cars, CarDTO.class);
+    }
+
+    // Shares the validator with CarController, so clients and CDNs revalidate against either server alike,
+    // under the same single-instance assumption (see CarController.conditional).
+    // Malformed numbers in the query or path are answered with 400, like a failed binding in Spring MVC.
+    private Mono<ServerResponse> conditional(ServerRequest request,
+                                             Function<ServerResponse.BodyBuilder, Mono<ServerResponse>> handler) {
+        return conditional(request, inventoryVersion.current(), handler);
+    }
+
+    // The version must be read before the data it validates, so a concurrent write can only make the ETag older
+    private Mono<ServerResponse> conditional(ServerRequest request, InventoryVersion.Snapshot version,
+                                             Function<ServerResponse.BodyBuilder, Mono<ServerResponse>> handler) {
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ZERO).mustRevalidate().cachePublic();
+        if (sharedMaxAgeSeconds > 0) {
+            cacheControl = cacheControl.sMaxAge(Duration.ofSeconds(sharedMaxAgeSeconds));
+        }
+
+        if (request.exchange().checkNotModified(version.getEtag(), version.getLastModified())) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+
+        ServerResponse.BodyBuilder ok = ServerResponse.ok()
+                .eTag(version.getEtag())
+                .lastModified(version.getLastModified())
+                .cacheControl(cacheControl);
+        try {
+            return handler.apply(ok);
+        } catch (IllegalArgumentException e) {
+            return ServerResponse.badRequest().build();
+        }
+    }
+
+    private static CarSearchCriteria criteria(ServerRequest request) {
+        return CarSearchCriteria.builder()
+                .q(param(request, "q", Function.identity()))
+                .brand(param(request, "brand", Function.identity()))
+                .model(param(request, "model", Function.identity()))
+                .fuelType(param(request, "fuelType", Function.identity()))
+                .minYear(param(request, "minYear", Integer::valueOf))
+                .maxYear(param(request, "maxYear", Integer::valueOf))
+                .minPrice(param(request, "minPrice", BigDecimal::new))
+                .maxPrice(param(request, "maxPrice", BigDecimal::new))
+                .minMileage(param(request, "minMileage", Integer::valueOf))
+                .maxMileage(param(request, "maxMileage", Integer::valueOf))
+                .minEngineCapacity(param(request, "minEngineCapacity", Double::valueOf))
+                .maxEngineCapacity(param(request, "maxEngineCapacity", Double::valueOf))
+                .limit(param(request, "limit", Integer::valueOf))
+                .build();
+    }
+
+    private static <T> T param(ServerRequest request, String name, Function<String, T> parser) {
+        return request.queryParam(name)
+                .filter(value -> !value.isBlank())
+                .map(String::trim)
+                .map(parser)
+                .orElse(null);
+    }
+}
@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import lombok.Builder;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -26,9 +27,24 @@ public class CarDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private List<String> imageGallery; // Keep as List<String> for frontend compatibility
+    // Same order as imageGallery; entries fall back to the full image when no variant was generated
+    private List<String> cardGallery;
+    private List<String> thumbnailGallery;
+
+    // Used by JPQL constructor expressions in CarRepository; the gallery is attached afterwards
+    public CarDTO(Long id, String brand, String model, Integer productionYear, BigDecimal price,
+                  String fuelType, Integer mileage, Double engineCapacity, String transmission,
+                  String description, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, brand, model, productionYear, price, fuelType, mileage, engineCapacity, transmission,
+                description, createdAt, updatedAt, new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
 
     // Helper method to get main image (first image in gallery)
     public String getMainImage() {
         return imageGallery != null && !imageGallery.isEmpty() ? imageGallery.get(0) : null;
     }
+
+    public String getMainThumbnail() {
+        return thumbnailGallery != null && !thumbnailGallery.isEmpty() ? thumbnailGallery.get(0) : null;
+    }
 } 
\ No newline at end of file
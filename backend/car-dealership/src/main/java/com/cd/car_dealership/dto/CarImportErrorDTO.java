@@ -0,0 +1,15 @@
+package com.cd.car_dealership.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarImportErrorDTO {
+    private long row; // 1-based record number, header excluded
+    private String message;
+}
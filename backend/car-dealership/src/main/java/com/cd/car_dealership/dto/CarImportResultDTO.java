@@ -0,0 +1,19 @@
+package com.cd.car_dealership.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarImportResultDTO {
+    private int imported;
+    private int rejected;
+    @Builder.Default
+    private List<CarImportErrorDTO> errors = new ArrayList<>(); // capped, see CarTransferService
+}
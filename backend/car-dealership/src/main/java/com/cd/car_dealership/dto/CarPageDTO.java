@@ -0,0 +1,16 @@
+package com.cd.car_dealership.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarPageDTO {
+    private List<CarDTO> items;
+    private String nextCursor; // null when there are no more pages
+}
@@ -0,0 +1,27 @@
+package com.cd.car_dealership.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarSearchCriteria {
+    private String q; // free text over brand, model and description, ranked by relevance on PostgreSQL; elsewhere every word must occur
+    private String brand;
+    private String model;
+    private String fuelType;
+    private Integer minYear;
+    private Integer maxYear;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer minMileage;
+    private Integer maxMileage;
+    private Double minEngineCapacity;
+    private Double maxEngineCapacity;
+    private Integer limit; // clamped to 1..100; null returns every match
+}
@@ -0,0 +1,16 @@
+package com.cd.car_dealership.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GalleryUploadDTO {
+    private CarDTO car;
+    private List<ImageUploadResultDTO> files; // in request order
+}
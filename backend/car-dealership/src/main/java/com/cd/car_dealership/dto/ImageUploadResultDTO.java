@@ -0,0 +1,17 @@
+package com.cd.car_dealership.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageUploadResultDTO {
+    private String filename;
+    private boolean uploaded;
+    private String imageUrl;
+    private String error; // set when uploaded is false
+}
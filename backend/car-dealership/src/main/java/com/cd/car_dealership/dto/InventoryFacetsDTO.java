@@ -0,0 +1,28 @@
+package com.cd.car_dealership.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryFacetsDTO {
+    private int totalCars;
+    private List<FacetCountDTO> brands;
+    private List<FacetCountDTO> fuelTypes;
+    private List<FacetCountDTO> transmissions;
+    // Range bounds are null when the inventory is empty
+    private Integer minYear;
+    private Integer maxYear;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer minMileage;
+    private Integer maxMileage;
+    private Double minEngineCapacity;
+    private Double maxEngineCapacity;
+}
@@ -12,7 +12,13 @@ import java.util.List;
 import java.util.ArrayList;
 
 @Entity
-@Table(name = "cars")
+@Table(name = "cars", indexes = {
+        @Index(name = "idx_cars_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_cars_year_price", columnList = "production_year, price"),
+        @Index(name = "idx_cars_price_mileage", columnList = "price, mileage"),
+        @Index(name = "idx_cars_mileage", columnList = "mileage"),
+        @Index(name = "idx_cars_engine_capacity", columnList = "engine_capacity")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,8 +26,11 @@ import java.util.ArrayList;
 @EqualsAndHashCode(exclude = {"imageGallery"})
 public class Car {
     
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts;
+    // db/migration/V3__id_sequences.sql moves the sequence past ids issued by the old identity column
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_seq")
+    @SequenceGenerator(name = "car_seq", sequenceName = "car_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -0,0 +1,53 @@
+package com.cd.car_dealership.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import java.time.LocalDateTime;
+
+// Outbox row for a remote image that still has to be deleted from the image store.
+// Written in the same transaction as the database delete, drained by ImageDeletionWorker.
+@Entity
+@Table(name = "image_deletion_outbox", indexes = {
+        @Index(name = "idx_image_deletion_next_attempt", columnList = "next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageDeletion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "image_deletion_seq")
+    @SequenceGenerator(name = "image_deletion_seq", sequenceName = "image_deletion_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "public_id", nullable = false)
+    private String publicId;
+    
+    @Column(nullable = false)
+    private Integer attempts;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+        if (this.attempts == null) {
+            this.attempts = 0;
+        }
+        if (this.nextAttemptAt == null) {
+            this.nextAttemptAt = this.createdAt;
+        }
+    }
+    
+}
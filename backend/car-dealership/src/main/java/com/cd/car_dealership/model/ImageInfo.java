@@ -7,6 +7,11 @@ import lombok.NoArgsConstructor;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 @Entity
 @Table(name = "car_images")
 @Data
@@ -16,8 +21,10 @@ import lombok.EqualsAndHashCode;
 @EqualsAndHashCode(exclude = {"car"})
 public class ImageInfo {
     
+    // Pooled sequence so gallery rows cascaded from Car are inserted in JDBC batches (see Car.id)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_image_seq")
+    @SequenceGenerator(name = "car_image_seq", sequenceName = "car_image_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne
@@ -29,5 +36,30 @@ public class ImageInfo {
     
     @Column(name = "public_id", nullable = false)
     private String publicId;
+    
+    // Downscaled variants generated on upload (see ImageDerivativeService); null for images stored before
+    // the derivatives existed or whose format could not be decoded, clients then fall back to imageUrl
+    @Column(name = "card_url")
+    private String cardUrl;
+    
+    @Column(name = "card_public_id")
+    private String cardPublicId;
+    
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+    
+    @Column(name = "thumbnail_public_id")
+    private String thumbnailPublicId;
+    
+    // SHA-256 of the uploaded file; an identical upload reuses the stored images instead of storing them again
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
+    // Every stored object behind this gallery entry, for the deletion outbox
+    public List<String> storedPublicIds() {
+        return Stream.of(publicId, cardPublicId, thumbnailPublicId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
 } 
\ No newline at end of file
@@ -1,16 +1,31 @@
 package com.cd.car_dealership.repository;
 
+import com.cd.car_dealership.dto.CarDTO;
 import com.cd.car_dealership.model.Car;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface CarRepository extends JpaRepository<Car, Long> {
+public interface CarRepository extends JpaRepository<Car, Long>, CarSearchRepository {
+    
+    // Read-only projection straight into CarDTO, no managed entities are created
+    String CAR_DTO_SELECT = "SELECT new com.cd.car_dealership.dto.CarDTO(" +
+            "c.id, c.brand, c.model, c.productionYear, c.price, c.fuelType, c.mileage, " +
+            "c.engineCapacity, c.transmission, c.description, c.createdAt, c.updatedAt) ";
+    
+    @Query(CAR_DTO_SELECT + "FROM Car c")
+    List<CarDTO> findAllProjected();
     
     // Basic search methods
     List<Car> findByBrandContainingIgnoreCase(String brand);
@@ -37,30 +52,21 @@ public interface CarRepository extends JpaRepository<Car, Long> {
     List<Car> findByEngineCapacityGreaterThanEqual(Double minCapacity);
     List<Car> findByEngineCapacityLessThanEqual(Double maxCapacity);
     
-    // Complex search with multiple criteria
-    @Query("SELECT c FROM Car c WHERE " +
-           "(:brand IS NULL OR LOWER(c.brand) LIKE LOWER(CONCAT('%', :brand, '%'))) AND " +
-           "(:model IS NULL OR LOWER(c.model) LIKE LOWER(CONCAT('%', :model, '%'))) AND " +
-           "(:fuelType IS NULL OR LOWER(c.fuelType) LIKE LOWER(CONCAT('%', :fuelType, '%'))) AND " +
-           "(:minYear IS NULL OR c.productionYear >= :minYear) AND " +
-           "(:maxYear IS NULL OR c.productionYear <= :maxYear) AND " +
-           "(:minPrice IS NULL OR c.price >= :minPrice) AND " +
-           "(:maxPrice IS NULL OR c.price <= :maxPrice) AND " +
-           "(:minMileage IS NULL OR c.mileage >= :minMileage) AND " +
-           "(:maxMileage IS NULL OR c.mileage <= :maxMileage) AND " +
-           "(:minEngineCapacity IS NULL OR c.engineCapacity >= :minEngineCapacity) AND " +
-           "(:maxEngineCapacity IS NULL OR c.engineCapacity <= :maxEngineCapacity)")
-    List<Car> findCarsByCriteria(
-            @Param("brand") String brand,
-            @Param("model") String model,
-            @Param("fuelType") String fuelType,
-            @Param("minYear") Integer minYear,
-            @Param("maxYear") Integer maxYear,
-            @Param("minPrice") BigDecimal minPrice,
-            @Param("maxPrice") BigDecimal maxPrice,
-            @Param("minMileage") Integer minMileage,
-            @Param("maxMileage") Integer maxMileage,
-            @Param("minEngineCapacity") Double minEngineCapacity,
-            @Param("maxEngineCapacity") Double maxEngineCapacity
+    // Keyset pagination, newest first, on (createdAt, id)
+    @Query(CAR_DTO_SELECT + "FROM Car c ORDER BY c.createdAt DESC, c.id DESC")
+    List<CarDTO> findFirstPage(Pageable pageable);
+    
+    @Query(CAR_DTO_SELECT + "FROM Car c WHERE " +
+           "c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CarDTO> findPageAfter(
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
     );
-} 
\ No newline at end of file
+    
+    // Full inventory as a cursor-backed stream, must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(CAR_DTO_SELECT + "FROM Car c ORDER BY c.createdAt DESC, c.id DESC")
+    Stream<CarDTO> streamAll();
+}
@@ -0,0 +1,12 @@
+package com.cd.car_dealership.repository;
+
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.dto.CarSearchCriteria;
+
+import java.util.List;
+
+public interface CarSearchRepository {
+    
+    // Builds the query from the supplied criteria only, so the planner can use the matching indexes
+    List<CarDTO> search(CarSearchCriteria criteria);
+}
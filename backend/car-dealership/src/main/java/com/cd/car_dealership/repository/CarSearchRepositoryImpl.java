@@ -0,0 +1,144 @@
+package com.cd.car_dealership.repository;
+
+import com.cd.car_dealership.config.CarSearchFunctionContributor;
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.dto.CarSearchCriteria;
+import com.cd.car_dealership.model.Car;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+public class CarSearchRepositoryImpl implements CarSearchRepository {
+    
+    private static final char LIKE_ESCAPE = '\\';
+    private static final int MAX_QUERY_TERMS = 8;
+    // Same cap as CarService.getCarsPage
+    private static final int MAX_LIMIT = 100;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private volatile Boolean fullTextSearchAvailable;
+    
+    @Override
+    public List<CarDTO> search(CarSearchCriteria criteria) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CarDTO> query = cb.createQuery(CarDTO.class);
+        Root<Car> car = query.from(Car.class);
+        
+        query.select(cb.construct(CarDTO.class,
+                car.get("id"), car.get("brand"), car.get("model"), car.get("productionYear"),
+                car.get("price"), car.get("fuelType"), car.get("mileage"), car.get("engineCapacity"),
+                car.get("transmission"), car.get("description"), car.get("createdAt"), car.get("updatedAt")));
+        
+        List<Predicate> predicates = new ArrayList<>();
+        addContains(cb, predicates, car.get("brand"), criteria.getBrand());
+        addContains(cb, predicates, car.get("model"), criteria.getModel());
+        addContains(cb, predicates, car.get("fuelType"), criteria.getFuelType());
+        addRange(cb, predicates, car.get("productionYear"), criteria.getMinYear(), criteria.getMaxYear());
+        addRange(cb, predicates, car.get("price"), criteria.getMinPrice(), criteria.getMaxPrice());
+        addRange(cb, predicates, car.get("mileage"), criteria.getMinMileage(), criteria.getMaxMileage());
+        addRange(cb, predicates, car.get("engineCapacity"), criteria.getMinEngineCapacity(), criteria.getMaxEngineCapacity());
+        
+        List<String> terms = searchTerms(criteria.getQ());
+        if (!terms.isEmpty() && fullTextSearchAvailable()) {
+            Expression<Object> document = cb.function(CarSearchFunctionContributor.DOCUMENT, Object.class, car.get("id"));
+            Expression<String> tsQuery = cb.literal(toPrefixTsQuery(terms));
+            predicates.add(cb.isTrue(cb.function(CarSearchFunctionContributor.MATCHES, Boolean.class, document, tsQuery)));
+            query.orderBy(cb.desc(cb.function(CarSearchFunctionContributor.RANK, Double.class, document, tsQuery)),
+                    cb.desc(car.get("createdAt")), cb.desc(car.get("id")));
+        } else {
+            // Without PostgreSQL's full-text search every word must still occur in brand, model or description
+            if (!terms.isEmpty()) {
+                Expression<String> text = cb.lower(cb.concat(cb.concat(cb.concat(car.get("brand"), " "),
+                        cb.concat(car.get("model"), " ")), cb.coalesce(car.get("description"), "")));
+                for (String term : terms) {
+                    predicates.add(cb.like(text, "%" + term + "%"));
+                }
+            }
+            query.orderBy(cb.desc(car.get("createdAt")), cb.desc(car.get("id")));
+        }
+        
+        query.where(predicates.toArray(new Predicate[0]));
+        
+        TypedQuery<CarDTO> typedQuery = entityManager.createQuery(query);
+        if (criteria.getLimit() != null) {
+            typedQuery.setMaxResults(clampLimit(criteria.getLimit()));
+        }
+        return typedQuery.getResultList();
+    }
+    
+    // Substring match on lower(column), served by the pg_trgm GIN indexes on PostgreSQL
+    private void addContains(CriteriaBuilder cb, List<Predicate> predicates, Expression<String> column, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        String pattern = "%" + escapeLike(value.trim().toLowerCase(Locale.ROOT)) + "%";
+        predicates.add(cb.like(cb.lower(column), pattern, LIKE_ESCAPE));
+    }
+    
+    private <T extends Comparable<? super T>> void addRange(CriteriaBuilder cb, List<Predicate> predicates,
+                                                            Expression<T> column, T min, T max) {
+        if (min != null) {
+            predicates.add(cb.greaterThanOrEqualTo(column, min));
+        }
+        if (max != null) {
+            predicates.add(cb.lessThanOrEqualTo(column, max));
+        }
+    }
+    
+    // The functions are only registered for PostgreSQL, see CarSearchFunctionContributor
+    private boolean fullTextSearchAvailable() {
+        Boolean available = fullTextSearchAvailable;
+        if (available == null) {
+            available = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getQueryEngine().getSqmFunctionRegistry()
+                    .findFunctionDescriptor(CarSearchFunctionContributor.MATCHES) != null;
+            fullTextSearchAvailable = available;
+        }
+        return available;
+    }
+    
+    // A requested limit is kept between 1 and MAX_LIMIT; only a missing one returns every match
+    static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+    
+    // Lower-cased words of a free-text query. Only letters and digits survive, so user input can neither
+    // inject tsquery syntax nor LIKE wildcards.
+    static List<String> searchTerms(String q) {
+        if (q == null || q.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(q.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .limit(MAX_QUERY_TERMS)
+                .collect(Collectors.toList());
+    }
+    
+    // ["bmw", "320"] -> "bmw:* & 320:*": every word must match, each as a prefix so partially typed words
+    // already find listings. Shared with ReactiveCarRepository so both read stacks match the same listings.
+    static String toPrefixTsQuery(List<String> terms) {
+        return terms.stream()
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+    
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
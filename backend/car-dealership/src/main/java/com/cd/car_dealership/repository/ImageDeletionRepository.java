@@ -0,0 +1,31 @@
+package com.cd.car_dealership.repository;
+
+import com.cd.car_dealership.model.ImageDeletion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImageDeletionRepository extends JpaRepository<ImageDeletion, Long> {
+    
+    // Lock timeout -2 renders FOR UPDATE SKIP LOCKED, so several instances can drain the outbox concurrently
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT d FROM ImageDeletion d WHERE d.nextAttemptAt <= :now ORDER BY d.nextAttemptAt")
+    List<ImageDeletion> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    // Queued deletions of these stored images, locked in id order; waits while a worker is claiming them
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM ImageDeletion d WHERE d.publicId IN :publicIds ORDER BY d.id")
+    List<ImageDeletion> lockByPublicIdIn(@Param("publicIds") Collection<String> publicIds);
+}
@@ -1,10 +1,18 @@
 package com.cd.car_dealership.repository;
 
 import com.cd.car_dealership.model.ImageInfo;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface ImageInfoRepository extends JpaRepository<ImageInfo, Long> {
@@ -12,4 +20,51 @@ public interface ImageInfoRepository extends JpaRepository<ImageInfo, Long> {
     List<ImageInfo> findByCarId(Long carId);
     
     void deleteByCarId(Long carId);
-} 
\ No newline at end of file
+    
+    // Gallery URLs for a batch of cars in a single IN-query, in upload order
+    @Query("SELECT i.car.id AS carId, i.imageUrl AS imageUrl, i.cardUrl AS cardUrl, " +
+           "i.thumbnailUrl AS thumbnailUrl FROM ImageInfo i " +
+           "WHERE i.car.id IN :carIds ORDER BY i.id")
+    List<CarImageUrl> findImageUrlsByCarIds(@Param("carIds") Collection<Long> carIds);
+    
+    // Any earlier upload of the same file, whose stored images a new upload can reuse
+    Optional<ImageInfo> findFirstByContentHash(String contentHash);
+    
+    @Query("SELECT i.publicId AS publicId, i.cardPublicId AS cardPublicId, i.thumbnailPublicId AS thumbnailPublicId " +
+           "FROM ImageInfo i WHERE i.publicId IN :publicIds " +
+           "OR i.cardPublicId IN :publicIds OR i.thumbnailPublicId IN :publicIds")
+    List<StoredPublicIds> findByAnyPublicIdIn(@Param("publicIds") Collection<String> publicIds);
+    
+    // Share-locks the gallery rows that use any of these stored images (FOR SHARE on PostgreSQL), waiting
+    // for a removal of one of them that is in progress. Locked in id order so concurrent callers cannot deadlock.
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT i FROM ImageInfo i WHERE i.publicId IN :publicIds " +
+           "OR i.cardPublicId IN :publicIds OR i.thumbnailPublicId IN :publicIds ORDER BY i.id")
+    List<ImageInfo> lockByAnyPublicIdIn(@Param("publicIds") Collection<String> publicIds);
+    
+    // Public ids that gallery rows still point to. Reused uploads and content-addressed stores share
+    // stored images between rows, so a removed row's images may still be in use elsewhere.
+    default Set<String> findReferencedPublicIds(Collection<String> publicIds) {
+        Set<String> referenced = new HashSet<>();
+        for (StoredPublicIds row : findByAnyPublicIdIn(publicIds)) {
+            referenced.add(row.getPublicId());
+            referenced.add(row.getCardPublicId());
+            referenced.add(row.getThumbnailPublicId());
+        }
+        referenced.retainAll(publicIds);
+        return referenced;
+    }
+    
+    interface CarImageUrl {
+        Long getCarId();
+        String getImageUrl();
+        String getCardUrl();
+        String getThumbnailUrl();
+    }
+    
+    interface StoredPublicIds {
+        String getPublicId();
+        String getCardPublicId();
+        String getThumbnailPublicId();
+    }
+} 
@@ -0,0 +1,226 @@
+package com.cd.car_dealership.repository;
+
+import com.cd.car_dealership.config.CarSearchFunctionContributor;
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.dto.CarSearchCriteria;
+import io.r2dbc.spi.Readable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Non-blocking counterpart of CarRepository's read queries for the reactive catalogue (catalog.reactive.enabled).
+// Same filters, ordering and full-text search as CarSearchRepositoryImpl, written as SQL for R2DBC.
+// Results are read in keyset pages of PAGE_SIZE as subscribers request them. Each page is read in full, which
+// returns its connection to the pool, before its galleries are fetched, so a stream never holds more than one
+// pooled connection and holds none while a slow client downloads.
+@Repository
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveCarRepository {
+
+    private static final String SELECT_CARS = "SELECT id, brand, model, production_year, price, fuel_type, mileage, " +
+            "engine_capacity, transmission, description, created_at, updated_at";
+    private static final String NEWEST_FIRST = "created_at DESC, id DESC";
+    private static final String OLDER_THAN_LAST = "(created_at < :after_created_at OR (created_at = :after_created_at AND id < :after_id))";
+    private static final String SEARCH_DOCUMENT = CarSearchFunctionContributor.DOCUMENT_COLUMN;
+    private static final String SEARCH_TEXT = "lower(brand || ' ' || model || ' ' || coalesce(description, ''))";
+    private static final String SEARCH_QUERY = CarSearchFunctionContributor.QUERY.replace("?1", ":q");
+    private static final String SEARCH_RANK = "ts_rank(" + SEARCH_DOCUMENT + ", " + SEARCH_QUERY + ")";
+    // Galleries are attached per page of cars with one IN-query, like CarService does
+    private static final int PAGE_SIZE = 100;
+
+    private final DatabaseClient databaseClient;
+
+    // Newest first; null limit streams the whole inventory, any other is clamped like a search limit
+    public Flux<CarDTO> findAll(Integer limit) {
+        return pages(List.of(), Map.of(), null, limit);
+    }
+
+    public Flux<CarDTO> search(CarSearchCriteria criteria) {
+        List<String> predicates = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        addContains(predicates, parameters, "brand", criteria.getBrand());
+        addContains(predicates, parameters, "model", criteria.getModel());
+        addContains(predicates, parameters, "fuel_type", criteria.getFuelType());
+        addRange(predicates, parameters, "production_year", criteria.getMinYear(), criteria.getMaxYear());
+        addRange(predicates, parameters, "price", criteria.getMinPrice(), criteria.getMaxPrice());
+        addRange(predicates, parameters, "mileage", criteria.getMinMileage(), criteria.getMaxMileage());
+        addRange(predicates, parameters, "engine_capacity", criteria.getMinEngineCapacity(), criteria.getMaxEngineCapacity());
+
+        String rank = null;
+        List<String> terms = CarSearchRepositoryImpl.searchTerms(criteria.getQ());
+        if (!terms.isEmpty() && isPostgreSql()) {
+            predicates.add(SEARCH_DOCUMENT + " @@ " + SEARCH_QUERY);
+            parameters.put("q", CarSearchRepositoryImpl.toPrefixTsQuery(terms));
+            rank = SEARCH_RANK;
+        } else {
+            // Same substring fallback as CarSearchRepositoryImpl on databases without full-text search
+            for (int i = 0; i < terms.size(); i++) {
+                predicates.add(SEARCH_TEXT + " LIKE :term_" + i);
+                parameters.put("term_" + i, "%" + terms.get(i) + "%");
+            }
+        }
+        return pages(predicates, parameters, rank, criteria.getLimit());
+    }
+
+    public Mono<CarDTO> findById(Long id) {
+        return pages(List.of("id = :id"), Map.of("id", id), null, 1).next();
+    }
+
+    private boolean isPostgreSql() {
+        return "PostgreSQL".equals(databaseClient.getConnectionFactory().getMetadata().getName());
+    }
+
+    // A limit fits in one page; without one, each full page is followed by the page after its last row.
+    // expand and concatMap only ask for the next page once the previous one has been emitted.
+    private Flux<CarDTO> pages(List<String> predicates, Map<String, Object> parameters, String rank, Integer limit) {
+        int pageSize = limit != null ? CarSearchRepositoryImpl.clampLimit(limit) : PAGE_SIZE;
+        Mono<List<Listing>> first = page(predicates, parameters, rank, null, pageSize);
+        Flux<List<Listing>> pages = limit != null ? first.flux() : first.expand(page -> page.size() < pageSize
+                ? Mono.empty()
+                : page(predicates, parameters, rank, page.get(page.size() - 1), pageSize));
+        return pages.concatMap(this::attachGalleries, 1);
+    }
+
+    // Ranked searches continue after the last (rank, created_at, id), everything else after (created_at, id)
+    private Mono<List<Listing>> page(List<String> predicates, Map<String, Object> parameters, String rank,
+                                     Listing after, int pageSize) {
+        List<String> where = new ArrayList<>(predicates);
+        Map<String, Object> bindings = new LinkedHashMap<>(parameters);
+        if (after != null) {
+            where.add(rank == null ? OLDER_THAN_LAST
+                    : "(" + rank + " < :after_rank OR (" + rank + " = :after_rank AND " + OLDER_THAN_LAST + "))");
+            bindings.put("after_created_at", after.getCar().getCreatedAt());
+            bindings.put("after_id", after.getCar().getId());
+            if (rank != null) {
+                bindings.put("after_rank", after.getRank());
+            }
+        }
+
+        StringBuilder sql = new StringBuilder(SELECT_CARS);
+        if (rank != null) {
+            sql.append(", ").append(rank).append(" AS search_rank");
+        }
+        sql.append(" FROM cars");
+        if (!where.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", where));
+        }
+        sql.append(" ORDER BY ").append(rank != null ? "search_rank DESC, " : "").append(NEWEST_FIRST);
+        sql.append(" LIMIT :page_size");
+        bindings.put("page_size", pageSize);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+            spec = spec.bind(binding.getKey(), binding.getValue());
+        }
+        boolean ranked = rank != null;
+        return spec.map(row -> new Listing(toCarDTO(row), ranked ? row.get("search_rank", Float.class) : null))
+                .all()
+                .collectList();
+    }
+
+    private Flux<CarDTO> attachGalleries(List<Listing> page) {
+        if (page.isEmpty()) {
+            return Flux.empty();
+        }
+        List<CarDTO> cars = page.stream().map(Listing::getCar).collect(Collectors.toList());
+        List<Long> carIds = cars.stream().map(CarDTO::getId).collect(Collectors.toList());
+        return databaseClient.sql("SELECT car_id, image_url, card_url, thumbnail_url FROM car_images " +
+                        "WHERE car_id IN (:carIds) ORDER BY id")
+                .bind("carIds", carIds)
+                .map(row -> {
+                    String imageUrl = row.get("image_url", String.class);
+                    return new GalleryImage(row.get("car_id", Long.class), imageUrl,
+                            orElse(row.get("card_url", String.class), imageUrl),
+                            orElse(row.get("thumbnail_url", String.class), imageUrl));
+                })
+                .all()
+                .collect(Collectors.groupingBy(GalleryImage::getCarId))
+                .flatMapIterable(galleries -> {
+                    for (CarDTO car : cars) {
+                        List<GalleryImage> gallery = galleries.getOrDefault(car.getId(), List.of());
+                        car.setImageGallery(urls(gallery, GalleryImage::getImageUrl));
+                        car.setCardGallery(urls(gallery, GalleryImage::getCardUrl));
+                        car.setThumbnailGallery(urls(gallery, GalleryImage::getThumbnailUrl));
+                    }
+                    return cars;
+                });
+    }
+
+    // Substring match on lower(column), served by the pg_trgm GIN indexes on PostgreSQL
+    private static void addContains(List<String> predicates, Map<String, Object> parameters, String column, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        predicates.add("lower(" + column + ") LIKE :" + column + " ESCAPE '\\'");
+        parameters.put(column, "%" + CarSearchRepositoryImpl.escapeLike(value.trim().toLowerCase(Locale.ROOT)) + "%");
+    }
+
+    private static void addRange(List<String> predicates, Map<String, Object> parameters, String column, Object min, Object max) {
+        if (min != null) {
+            predicates.add(column + " >= :min_" + column);
+            parameters.put("min_" + column, min);
+        }
+        if (max != null) {
+            predicates.add(column + " <= :max_" + column);
+            parameters.put("max_" + column, max);
+        }
+    }
+
+    private static CarDTO toCarDTO(Readable row) {
+        return new CarDTO(
+                row.get("id", Long.class),
+                row.get("brand", String.class),
+                row.get("model", String.class),
+                row.get("production_year", Integer.class),
+                row.get("price", BigDecimal.class),
+                row.get("fuel_type", String.class),
+                row.get("mileage", Integer.class),
+                row.get("engine_capacity", Double.class),
+                row.get("transmission", String.class),
+                row.get("description", String.class),
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class));
+    }
+
+    private static List<String> urls(List<GalleryImage> gallery, Function<GalleryImage, String> url) {
+        return gallery.stream().map(url).collect(Collectors.toList());
+    }
+
+    private static String orElse(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    // A row of a page with its search rank, which is part of the keyset of ranked searches
+    @Data
+    @AllArgsConstructor
+    private static class Listing {
+        private final CarDTO car;
+        private final Float rank;
+    }
+
+    // Variant URLs already fall back to the full image where no variant was generated
+    @Data
+    @AllArgsConstructor
+    private static class GalleryImage {
+        private final Long carId;
+        private final String imageUrl;
+        private final String cardUrl;
+        private final String thumbnailUrl;
+    }
+}
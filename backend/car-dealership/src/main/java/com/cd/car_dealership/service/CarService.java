@@ -1,46 +1,144 @@
 package com.cd.car_dealership.service;
 
+import com.cd.car_dealership.config.CacheConfig;
 import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.dto.CarPageDTO;
+import com.cd.car_dealership.dto.CarSearchCriteria;
+import com.cd.car_dealership.dto.GalleryUploadDTO;
+import com.cd.car_dealership.dto.ImageUploadResultDTO;
+import com.cd.car_dealership.dto.InventoryFacetsDTO;
 import com.cd.car_dealership.model.Car;
+import com.cd.car_dealership.model.ImageDeletion;
 import com.cd.car_dealership.model.ImageInfo;
 import com.cd.car_dealership.repository.CarRepository;
+import com.cd.car_dealership.repository.ImageDeletionRepository;
 import com.cd.car_dealership.repository.ImageInfoRepository;
-import com.cd.car_dealership.service.CloudinaryService;
+import com.cd.car_dealership.repository.ImageInfoRepository.CarImageUrl;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CarService {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    // Keeps gallery IN-queries well below the JDBC bind parameter limit
+    private static final int GALLERY_BATCH_SIZE = 1000;
+    private static final int STREAM_CHUNK_SIZE = 500;
+    
     private final CarRepository carRepository;
     private final ImageInfoRepository imageInfoRepository;
-    private final CloudinaryService cloudinaryService;
+    private final ImageDeletionRepository imageDeletionRepository;
+    private final ImageDerivativeService imageDerivativeService;
+    private final ImageValidationService imageValidationService;
+    private final ImageUploadPool imageUploadPool;
+    private final InventoryIndex inventoryIndex;
+    private final InventoryVersion inventoryVersion;
+    private final TransactionTemplate transactionTemplate;
 
+    // Not cached: the whole inventory would stay on the heap. Clients revalidate it with the shared ETag,
+    // and getCarsPage serves large inventories in cached, bounded pages.
+    @Transactional(readOnly = true)
     public List<CarDTO> getAllCars() {
-        return carRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return attachGalleries(carRepository.findAllProjected());
+    }
+
+    // Keyed by the clamped page size, so limit=500 and limit=1000 share the entry of the 100-car page
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CAR_LISTS,
+            key = "T(com.cd.car_dealership.service.CarService).pageSize(#limit) + ':' + #cursor")
+    public CarPageDTO getCarsPage(String cursor, int limit) {
+        int pageSize = pageSize(limit);
+        // Fetch one extra row to find out whether another page exists
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        
+        List<CarDTO> cars;
+        if (cursor == null || cursor.isBlank()) {
+            cars = carRepository.findFirstPage(pageable);
+        } else {
+            CarDTO position = decodeCursor(cursor);
+            cars = carRepository.findPageAfter(position.getCreatedAt(), position.getId(), pageable);
+        }
+        
+        boolean hasMore = cars.size() > pageSize;
+        List<CarDTO> page = hasMore ? cars.subList(0, pageSize) : cars;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+        
+        return CarPageDTO.builder()
+                .items(attachGalleries(page))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    public static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllCars(Consumer<CarDTO> consumer) {
+        List<CarDTO> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        try (Stream<CarDTO> cars = carRepository.streamAll()) {
+            cars.forEach(car -> {
+                chunk.add(car);
+                if (chunk.size() == STREAM_CHUNK_SIZE) {
+                    flushChunk(chunk, consumer);
+                }
+            });
+        }
+        flushChunk(chunk, consumer);
     }
 
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CARS, key = "#id", unless = "#result == null")
     public Optional<CarDTO> getCarById(Long id) {
         return carRepository.findById(id)
                 .map(this::convertToDTO);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.CAR_LISTS, allEntries = true)
     public CarDTO createCar(CarDTO carDTO) {
         Car car = convertToEntity(carDTO);
         Car savedCar = carRepository.save(car);
-        return convertToDTO(savedCar);
+        CarDTO createdCar = convertToDTO(savedCar);
+        inventoryIndex.upsert(createdCar);
+        inventoryVersion.bump();
+        return createdCar;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CAR_LISTS, allEntries = true)
+    })
     public Optional<CarDTO> updateCar(Long id, CarDTO carDTO) {
         return carRepository.findById(id)
                 .map(existingCar -> {
@@ -53,45 +151,85 @@ public class CarService {
                     existingCar.setEngineCapacity(carDTO.getEngineCapacity());
                     existingCar.setTransmission(carDTO.getTransmission());
                     existingCar.setDescription(carDTO.getDescription());
-                    return convertToDTO(carRepository.save(existingCar));
+                    CarDTO updatedCar = convertToDTO(carRepository.save(existingCar));
+                    inventoryIndex.upsert(updatedCar);
+                    inventoryVersion.bump();
+                    return updatedCar;
                 });
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARS, key = "#carId"),
+            @CacheEvict(cacheNames = CacheConfig.CAR_LISTS, allEntries = true)
+    })
     public Optional<CarDTO> addImageToGallery(Long carId, MultipartFile file) {
+        // Checked before anything is uploaded, like the batch upload
+        if (!carRepository.existsById(carId)) {
+            return Optional.empty();
+        }
         try {
-            System.out.println("Adding image to gallery for car ID: " + carId);
-            CloudinaryService.CloudinaryUploadResult uploadResult = cloudinaryService.uploadImageWithPublicId(file);
-            System.out.println("Image uploaded to Cloudinary: " + uploadResult.getImageUrl());
+            log.debug("Adding image to gallery for car {}", carId);
+            imageValidationService.validateImage(file);
+            ImageDerivativeService.ImageDerivatives uploadResult = imageDerivativeService.process(file);
+            log.debug("Image uploaded to image store: {}", uploadResult.getFull().getImageUrl());
             
-            return carRepository.findById(carId)
-                    .map(car -> {
-                        System.out.println("Found car: " + car.getBrand() + " " + car.getModel());
-                        
-                        ImageInfo imageInfo = ImageInfo.builder()
-                                .imageUrl(uploadResult.getImageUrl())
-                                .publicId(uploadResult.getPublicId())
-                                .build();
-                        imageInfo.setCar(car);
-                        
-                        if (car.getImageGallery() == null) {
-                            car.setImageGallery(new ArrayList<>());
-                        }
-                        car.getImageGallery().add(imageInfo);
-                        
-                        System.out.println("Image added to car gallery. Total images: " + car.getImageGallery().size());
-                        
-                        Car savedCar = carRepository.save(car);
-                        System.out.println("Car saved with ID: " + savedCar.getId());
-                        
-                        return convertToDTO(savedCar);
-                    });
+            return saveToGallery(carId, List.of(uploadResult));
         } catch (Exception e) {
-            System.err.println("Error adding image to gallery: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error adding image to gallery of car {}", carId, e);
             throw new RuntimeException("Failed to upload image to gallery", e);
         }
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARS, key = "#carId"),
+            @CacheEvict(cacheNames = CacheConfig.CAR_LISTS, allEntries = true)
+    })
+    public Optional<GalleryUploadDTO> addImagesToGallery(Long carId, List<MultipartFile> files) {
+        if (!carRepository.existsById(carId)) {
+            return Optional.empty();
+        }
+        
+        List<CompletableFuture<ImageDerivativeService.ImageDerivatives>> uploads = files.stream()
+                .map(this::startUpload)
+                .collect(Collectors.toList());
+        
+        List<ImageUploadResultDTO> results = new ArrayList<>();
+        List<ImageDerivativeService.ImageDerivatives> storedImages = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            String filename = files.get(i).getOriginalFilename();
+            try {
+                ImageDerivativeService.ImageDerivatives storedImage = uploads.get(i).join();
+                storedImages.add(storedImage);
+                results.add(ImageUploadResultDTO.builder()
+                        .filename(filename)
+                        .uploaded(true)
+                        .imageUrl(storedImage.getFull().getImageUrl())
+                        .build());
+            } catch (CompletionException e) {
+                results.add(ImageUploadResultDTO.builder()
+                        .filename(filename)
+                        .uploaded(false)
+                        .error(e.getCause().getMessage())
+                        .build());
+            }
+        }
+        
+        // All successful uploads are persisted in one transaction
+        Optional<CarDTO> updatedCar = saveToGallery(carId, storedImages);
+        if (updatedCar.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(GalleryUploadDTO.builder()
+                .car(updatedCar.get())
+                .files(results)
+                .build());
+    }
+
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARS, key = "#carId"),
+            @CacheEvict(cacheNames = CacheConfig.CAR_LISTS, allEntries = true)
+    })
     public Optional<CarDTO> removeImageFromGallery(Long carId, String imageUrl) {
         return carRepository.findById(carId)
                 .map(car -> {
@@ -103,14 +241,11 @@ public class CarService {
                         if (imageToRemove.isPresent()) {
                             ImageInfo imageInfo = imageToRemove.get();
 
-                            try {
-                                cloudinaryService.deleteImage(imageInfo.getPublicId());
-                            } catch (Exception e) {
-                                System.err.println("Failed to delete image from Cloudinary: " + e.getMessage());
-                            }
+                            enqueueImageDeletions(imageInfo.storedPublicIds());
 
                             car.getImageGallery().remove(imageInfo);
                             imageInfoRepository.delete(imageInfo);
+                            inventoryVersion.bump();
                         }
                         
                         return convertToDTO(carRepository.save(car));
@@ -119,58 +254,195 @@ public class CarService {
                 });
     }
 
+    // Remote images are deleted asynchronously by ImageDeletionWorker once this transaction commits
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CAR_LISTS, allEntries = true)
+    })
     public boolean deleteCar(Long id) {
         return carRepository.findById(id)
                 .map(car -> {
                     if (car.getImageGallery() != null) {
-                        for (ImageInfo imageInfo : car.getImageGallery()) {
-                            try {
-                                cloudinaryService.deleteImage(imageInfo.getPublicId());
-                            } catch (Exception e) {
-                                System.err.println("Failed to delete image from Cloudinary: " + e.getMessage());
-                            }
-                        }
+                        enqueueImageDeletions(car.getImageGallery().stream()
+                                .flatMap(imageInfo -> imageInfo.storedPublicIds().stream())
+                                .collect(Collectors.toList()));
                     }
                     
-                    carRepository.deleteById(id);
+                    carRepository.delete(car);
+                    inventoryIndex.remove(id);
+                    inventoryVersion.bump();
                     return true;
                 })
                 .orElse(false);
     }
 
-    public List<CarDTO> searchCars(String brand, String model, String fuelType,
-                                   Integer minYear, Integer maxYear,
-                                   BigDecimal minPrice, BigDecimal maxPrice,
-                                   Integer minMileage, Integer maxMileage,
-                                   Double minEngineCapacity, Double maxEngineCapacity) {
-        return carRepository.findCarsByCriteria(
-                brand, model, fuelType,
-                minYear, maxYear,
-                minPrice, maxPrice,
-                minMileage, maxMileage,
-                minEngineCapacity, maxEngineCapacity
-        ).stream()
-        .map(this::convertToDTO)
-        .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<CarDTO> searchCars(CarSearchCriteria criteria) {
+        if (!inventoryIndex.mayMatch(criteria)) {
+            return new ArrayList<>();
+        }
+        return attachGalleries(carRepository.search(criteria));
     }
 
     public List<String> getAllBrands() {
-        return carRepository.findAll().stream()
-                .map(Car::getBrand)
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        return inventoryIndex.brands();
     }
 
     public List<String> getAllFuelTypes() {
-        return carRepository.findAll().stream()
-                .map(Car::getFuelType)
-                .distinct()
-                .sorted()
+        return inventoryIndex.fuelTypes();
+    }
+
+    public InventoryFacetsDTO getFacets() {
+        return inventoryIndex.facets();
+    }
+
+    // Validation runs on the request thread so invalid files never take an upload slot
+    private CompletableFuture<ImageDerivativeService.ImageDerivatives> startUpload(MultipartFile file) {
+        try {
+            imageValidationService.validateImage(file);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return imageUploadPool.submit(() -> {
+            try {
+                return imageDerivativeService.process(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Adds the stored images to the car's gallery in one transaction. When the car was deleted while they were
+    // uploading, or the save fails, nothing references them and they go to the deletion outbox.
+    private Optional<CarDTO> saveToGallery(Long carId, List<ImageDerivativeService.ImageDerivatives> storedImages) {
+        Optional<CarDTO> updatedCar;
+        try {
+            updatedCar = transactionTemplate.execute(status -> carRepository.findById(carId)
+                    .map(car -> {
+                        if (car.getImageGallery() == null) {
+                            car.setImageGallery(new ArrayList<>());
+                        }
+                        Set<String> reserved = new HashSet<>();
+                        for (ImageDerivativeService.ImageDerivatives storedImage : storedImages) {
+                            // The same file twice in one batch shares its stored images
+                            if (reserved.addAll(storedImage.publicIds())) {
+                                reserveStoredImages(storedImage);
+                            }
+                            car.getImageGallery().add(storedImage.toImageInfo(car));
+                        }
+                        Car savedCar = carRepository.save(car);
+                        log.debug("Car {} now has {} images", savedCar.getId(), savedCar.getImageGallery().size());
+                        inventoryVersion.bump();
+                        return convertToDTO(savedCar);
+                    }));
+        } catch (RuntimeException e) {
+            enqueueImageDeletions(publicIdsOf(storedImages));
+            throw e;
+        }
+        
+        if (updatedCar == null || updatedCar.isEmpty()) {
+            log.debug("Car {} was deleted while its images were uploading", carId);
+            enqueueImageDeletions(publicIdsOf(storedImages));
+            return Optional.empty();
+        }
+        return updatedCar;
+    }
+
+    // Uploads of known content reuse stored images, which the removal of an earlier gallery entry may have
+    // queued for deletion. Locking the gallery rows that use them lets such a removal commit its outbox rows
+    // first; queued deletions are then cancelled. The save is refused, and the client retries the upload,
+    // when a deletion is leased (or backing off) and may be running right now, or when a reused image lost
+    // every gallery row and its deletion without being cancelled, so it may already be gone.
+    private void reserveStoredImages(ImageDerivativeService.ImageDerivatives storedImage) {
+        List<String> publicIds = storedImage.publicIds();
+        List<ImageInfo> users = imageInfoRepository.lockByAnyPublicIdIn(publicIds);
+        LocalDateTime now = LocalDateTime.now();
+        List<ImageDeletion> queued = imageDeletionRepository.lockByPublicIdIn(publicIds);
+        
+        boolean deleting = queued.stream().anyMatch(deletion -> deletion.getNextAttemptAt().isAfter(now));
+        boolean deleted = storedImage.isReused() && users.isEmpty() && queued.isEmpty();
+        if (deleting || deleted) {
+            throw new IllegalStateException("An identical image is being deleted, retry the upload");
+        }
+        imageDeletionRepository.deleteAll(queued);
+    }
+
+    private static List<String> publicIdsOf(List<ImageDerivativeService.ImageDerivatives> storedImages) {
+        return storedImages.stream()
+                .flatMap(storedImage -> storedImage.publicIds().stream())
+                .collect(Collectors.toList());
+    }
+
+    private void enqueueImageDeletions(List<String> publicIds) {
+        List<ImageDeletion> deletions = publicIds.stream()
+                .filter(publicId -> publicId != null && !publicId.isBlank())
+                .map(publicId -> ImageDeletion.builder().publicId(publicId).build())
                 .collect(Collectors.toList());
+        imageDeletionRepository.saveAll(deletions);
+    }
+
+    private String encodeCursor(CarDTO car) {
+        String position = car.getCreatedAt() + "|" + car.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CarDTO decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return CarDTO.builder()
+                    .createdAt(LocalDateTime.parse(parts[0]))
+                    .id(Long.valueOf(parts[1]))
+                    .build();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private void flushChunk(List<CarDTO> chunk, Consumer<CarDTO> consumer) {
+        attachGalleries(chunk).forEach(consumer);
+        chunk.clear();
+    }
+
+    // Fills in projected DTOs' galleries using batched IN-queries instead of one query per car
+    private List<CarDTO> attachGalleries(List<CarDTO> cars) {
+        Map<Long, List<CarImageUrl>> galleries = loadGalleries(cars.stream().map(CarDTO::getId).collect(Collectors.toList()));
+        for (CarDTO car : cars) {
+            List<CarImageUrl> gallery = galleries.getOrDefault(car.getId(), new ArrayList<>());
+            car.setImageGallery(gallery.stream().map(CarImageUrl::getImageUrl).collect(Collectors.toList()));
+            car.setCardGallery(variantUrls(gallery, CarImageUrl::getCardUrl, CarImageUrl::getImageUrl));
+            car.setThumbnailGallery(variantUrls(gallery, CarImageUrl::getThumbnailUrl, CarImageUrl::getImageUrl));
+        }
+        return cars;
+    }
+
+    private Map<Long, List<CarImageUrl>> loadGalleries(List<Long> carIds) {
+        Map<Long, List<CarImageUrl>> galleries = new HashMap<>();
+        for (int from = 0; from < carIds.size(); from += GALLERY_BATCH_SIZE) {
+            List<Long> batch = carIds.subList(from, Math.min(from + GALLERY_BATCH_SIZE, carIds.size()));
+            for (CarImageUrl image : imageInfoRepository.findImageUrlsByCarIds(batch)) {
+                galleries.computeIfAbsent(image.getCarId(), id -> new ArrayList<>()).add(image);
+            }
+        }
+        return galleries;
     }
 
-    private CarDTO convertToDTO(Car car) {
+    // One URL per gallery image, falling back to the full image where no variant was generated
+    private static <T> List<String> variantUrls(List<T> gallery, Function<T, String> variant, Function<T, String> full) {
+        List<String> urls = new ArrayList<>(gallery.size());
+        for (T image : gallery) {
+            String url = variant.apply(image);
+            urls.add(url != null ? url : full.apply(image));
+        }
+        return urls;
+    }
+
+    // Package-private for the JMH suites in src/jmh/java
+    CarDTO convertToDTO(Car car) {
         return CarDTO.builder()
                 .id(car.getId())
                 .brand(car.getBrand())
@@ -185,9 +457,15 @@ public class CarService {
                 .createdAt(car.getCreatedAt())
                 .updatedAt(car.getUpdatedAt())
                 .imageGallery(car.getImageUrls())
+                .cardGallery(variantUrls(gallery(car), ImageInfo::getCardUrl, ImageInfo::getImageUrl))
+                .thumbnailGallery(variantUrls(gallery(car), ImageInfo::getThumbnailUrl, ImageInfo::getImageUrl))
                 .build();
     }
 
+    private static List<ImageInfo> gallery(Car car) {
+        return car.getImageGallery() != null ? car.getImageGallery() : Collections.emptyList();
+    }
+
     private Car convertToEntity(CarDTO carDTO) {
         return Car.builder()
                 .brand(carDTO.getBrand())
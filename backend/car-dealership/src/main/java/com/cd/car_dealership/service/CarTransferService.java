@@ -0,0 +1,277 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.config.CacheConfig;
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.dto.CarImportErrorDTO;
+import com.cd.car_dealership.dto.CarImportResultDTO;
+import com.cd.car_dealership.model.Car;
+import com.cd.car_dealership.repository.CarRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.RoundingMode;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+
+// Bulk import and export of the inventory as CSV or JSON lines. Both directions stream: imports are
+// parsed and validated record by record and inserted in JDBC batches, committed every cars.import.chunk-size
+// rows; exports are written as rows come off the database cursor.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CarTransferService {
+    
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int FIRST_PRODUCTION_YEAR = 1886;
+    private static final int MAX_TEXT_LENGTH = 255;
+    // cars.price is NUMERIC(10, 2)
+    private static final int PRICE_PRECISION = 10;
+    
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(JsonGenerator.Feature.IGNORE_UNKNOWN)
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .enable(CsvParser.Feature.TRIM_SPACES)
+            .build();
+    
+    // Import reads whichever of these columns the header names; id and timestamps are ignored
+    private static final CsvSchema EXPORT_SCHEMA = CsvSchema.builder()
+            .addColumn("id")
+            .addColumn("brand")
+            .addColumn("model")
+            .addColumn("productionYear")
+            .addColumn("price")
+            .addColumn("fuelType")
+            .addColumn("mileage")
+            .addColumn("engineCapacity")
+            .addColumn("transmission")
+            .addColumn("description")
+            .addColumn("createdAt")
+            .addColumn("updatedAt")
+            .setUseHeader(true)
+            .build();
+    
+    private final CarRepository carRepository;
+    private final CarService carService;
+    private final InventoryIndex inventoryIndex;
+    private final InventoryVersion inventoryVersion;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${cars.import.chunk-size:1000}")
+    private int chunkSize;
+    
+    public enum Format {
+        CSV(new MediaType("text", "csv")),
+        NDJSON(MediaType.APPLICATION_NDJSON);
+        
+        private final MediaType mediaType;
+        
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+        
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+        
+        public static Format of(MediaType mediaType) {
+            for (Format format : values()) {
+                if (format.mediaType.includes(mediaType)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported format: " + mediaType);
+        }
+    }
+    
+    // Invalid records are skipped and reported; chunks committed before a malformed record are kept
+    public CarImportResultDTO importCars(InputStream input, Format format) throws IOException {
+        List<CarImportErrorDTO> errors = new ArrayList<>();
+        List<Car> chunk = new ArrayList<>(chunkSize);
+        long row = 0;
+        int imported = 0;
+        int rejected = 0;
+        
+        try (MappingIterator<CarDTO> records = reader(format).readValues(input)) {
+            while (records.hasNextValue()) {
+                row++;
+                CarDTO car;
+                try {
+                    car = records.nextValue();
+                } catch (JsonMappingException e) {
+                    // A value of the wrong type; the iterator resyncs to the next record
+                    rejected++;
+                    addError(errors, row, e.getOriginalMessage());
+                    continue;
+                }
+                
+                String error = validate(car);
+                if (error != null) {
+                    rejected++;
+                    addError(errors, row, error);
+                    continue;
+                }
+                
+                chunk.add(toEntity(car));
+                if (chunk.size() == chunkSize) {
+                    imported += persist(chunk);
+                }
+            }
+            imported += persist(chunk);
+        } catch (JsonParseException e) {
+            imported += persist(chunk);
+            rejected++;
+            addError(errors, row, "Malformed input, import stopped: " + e.getOriginalMessage());
+        } finally {
+            if (imported > 0) {
+                // Rebuilt once per import instead of once per row. Also runs when a read error ends the import
+                // after some chunks were committed, which an @CacheEvict on the method would skip.
+                inventoryIndex.rebuild();
+                inventoryVersion.bump();
+                Cache carLists = cacheManager.getCache(CacheConfig.CAR_LISTS);
+                if (carLists != null) {
+                    carLists.clear();
+                }
+            }
+        }
+        
+        log.info("Imported {} cars from {} ({} rejected)", imported, format, rejected);
+        return CarImportResultDTO.builder()
+                .imported(imported)
+                .rejected(rejected)
+                .errors(errors)
+                .build();
+    }
+    
+    public void exportCars(Format format, OutputStream output) throws IOException {
+        ObjectWriter writer = format == Format.CSV
+                ? CSV_MAPPER.writerFor(CarDTO.class).with(EXPORT_SCHEMA)
+                : objectMapper.writerFor(CarDTO.class).withRootValueSeparator("\n");
+        
+        try (SequenceWriter sequence = writer
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .writeValues(output)) {
+            carService.streamAllCars(car -> {
+                try {
+                    sequence.write(car);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+    
+    private ObjectReader reader(Format format) {
+        if (format == Format.CSV) {
+            return CSV_MAPPER.readerFor(CarDTO.class).with(CsvSchema.emptySchema().withHeader());
+        }
+        return objectMapper.readerFor(CarDTO.class);
+    }
+    
+    private int persist(List<Car> chunk) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            carRepository.saveAll(chunk);
+            // Sends the chunk as JDBC batches and detaches it, so memory stays flat however large the file is
+            entityManager.flush();
+            entityManager.clear();
+        });
+        int persisted = chunk.size();
+        chunk.clear();
+        return persisted;
+    }
+    
+    private String validate(CarDTO car) {
+        if (isBlank(car.getBrand()) || car.getBrand().length() > MAX_TEXT_LENGTH) {
+            return "brand is required and must be at most " + MAX_TEXT_LENGTH + " characters";
+        }
+        if (isBlank(car.getModel()) || car.getModel().length() > MAX_TEXT_LENGTH) {
+            return "model is required and must be at most " + MAX_TEXT_LENGTH + " characters";
+        }
+        if (isBlank(car.getFuelType()) || car.getFuelType().length() > MAX_TEXT_LENGTH) {
+            return "fuelType is required and must be at most " + MAX_TEXT_LENGTH + " characters";
+        }
+        if (isBlank(car.getTransmission()) || car.getTransmission().length() > MAX_TEXT_LENGTH) {
+            return "transmission is required and must be at most " + MAX_TEXT_LENGTH + " characters";
+        }
+        int latestYear = Year.now().getValue() + 1;
+        if (car.getProductionYear() == null
+                || car.getProductionYear() < FIRST_PRODUCTION_YEAR || car.getProductionYear() > latestYear) {
+            return "productionYear must be between " + FIRST_PRODUCTION_YEAR + " and " + latestYear;
+        }
+        if (car.getPrice() == null || car.getPrice().signum() < 0
+                || car.getPrice().setScale(2, RoundingMode.HALF_UP).precision() > PRICE_PRECISION) {
+            return "price must be a non-negative amount below 100000000";
+        }
+        if (car.getMileage() == null || car.getMileage() < 0) {
+            return "mileage must be a non-negative number";
+        }
+        if (car.getEngineCapacity() == null || !(car.getEngineCapacity() > 0)) {
+            return "engineCapacity must be a positive number";
+        }
+        return null;
+    }
+    
+    private Car toEntity(CarDTO car) {
+        return Car.builder()
+                .brand(car.getBrand().trim())
+                .model(car.getModel().trim())
+                .productionYear(car.getProductionYear())
+                .price(car.getPrice().setScale(2, RoundingMode.HALF_UP))
+                .fuelType(car.getFuelType().trim())
+                .mileage(car.getMileage())
+                .engineCapacity(car.getEngineCapacity())
+                .transmission(car.getTransmission().trim())
+                .description(car.getDescription())
+                .build();
+    }
+    
+    private static void addError(List<CarImportErrorDTO> errors, long row, String message) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(CarImportErrorDTO.builder()
+                    .row(row)
+                    .message(message)
+                    .build());
+        }
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
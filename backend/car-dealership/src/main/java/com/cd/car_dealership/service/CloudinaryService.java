@@ -1,24 +1,37 @@
 package com.cd.car_dealership.service;
 
+import com.cd.car_dealership.config.ImageStoreConfig;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
-import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+@Slf4j
 @Service
+@Qualifier(ImageStoreConfig.BACKEND)
+@ConditionalOnProperty(name = "image.store", havingValue = "cloudinary", matchIfMissing = true)
 @RequiredArgsConstructor
-public class CloudinaryService {
+public class CloudinaryService implements ImageStore {
+    
+    private final MeterRegistry meterRegistry;
     
     private Cloudinary cloudinary;
-    private final ImageValidationService imageValidationService;
     
     @Value("${cloudinary.cloud-name}")
     private String cloudName;
@@ -29,50 +42,109 @@ public class CloudinaryService {
     @Value("${cloudinary.api-secret}")
     private String apiSecret;
     
+    // Connect and socket read timeout of the Cloudinary HTTP client; ResilientImageStore bounds the whole call
+    @Value("${cloudinary.timeout-seconds:30}")
+    private Integer timeoutSeconds;
+    
     @PostConstruct
     public void init() {
+        // The client-wide timeout is in seconds and applies to the Admin API (bulk delete)
         this.cloudinary = new Cloudinary(ObjectUtils.asMap(
                 "cloud_name", cloudName,
                 "api_key", apiKey,
-                "api_secret", apiSecret
+                "api_secret", apiSecret,
+                "timeout", timeoutSeconds
         ));
     }
 
-    public String uploadImage(MultipartFile file) throws IOException {
-        imageValidationService.validateImage(file);
+    @Override
+    public StoredImage upload(Path file, String filename) throws IOException {
+        log.debug("Uploading image {} to Cloudinary", filename);
 
-        Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.asMap(
-                "quality", "auto",
-                "fetch_format", "auto",
-                "width", 1200,
-                "height", 800,
-                "crop", "limit"
-        ));
-        return (String) uploadResult.get("secure_url");
-    }
-    
-    public CloudinaryUploadResult uploadImageWithPublicId(MultipartFile file) throws IOException {
-        System.out.println("Uploading image to Cloudinary: " + file.getOriginalFilename());
-        imageValidationService.validateImage(file);
+        DistributionSummary.builder("cloudinary.upload.size")
+                .description("Size of images sent to Cloudinary")
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .record(Files.size(file));
 
-        Map<?, ?> uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.asMap(
-                "quality", "auto",
-                "fetch_format", "auto",
-                "width", 1200,
-                "height", 800,
-                "crop", "limit"
-        ));
+        // Upload from disk so the HTTP client streams the body instead of holding the whole file on the heap
+        Map<?, ?> uploadResult;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            uploadResult = cloudinary.uploader().upload(file.toFile(), ObjectUtils.asMap(
+                    "quality", "auto",
+                    "fetch_format", "auto",
+                    "width", 1200,
+                    "height", 800,
+                    "crop", "limit",
+                    "timeout", requestTimeoutMillis(),
+                    "connect_timeout", requestTimeoutMillis()
+            ));
+            outcome = "success";
+        } finally {
+            sample.stop(timer("upload", outcome));
+        }
         
         String imageUrl = (String) uploadResult.get("secure_url");
         String publicId = (String) uploadResult.get("public_id");
         
-        System.out.println("Image uploaded successfully. URL: " + imageUrl + ", Public ID: " + publicId);
+        log.info("Image {} uploaded to Cloudinary as {}", filename, publicId);
         
-        return new CloudinaryUploadResult(imageUrl, publicId);
+        return new StoredImage(imageUrl, publicId);
+    }
+    
+    @Override
+    public void delete(String publicId) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            cloudinary.uploader().destroy(publicId, ObjectUtils.asMap(
+                    "timeout", requestTimeoutMillis(),
+                    "connect_timeout", requestTimeoutMillis()));
+            outcome = "success";
+        } finally {
+            sample.stop(timer("delete", outcome));
+        }
     }
     
-    public void deleteImage(String publicId) throws IOException {
-        cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+    // One Admin API call per batch (up to 100 public ids) instead of one destroy call per image
+    @Override
+    public Set<String> deleteAll(List<String> publicIds) throws IOException {
+        Map<?, ?> response;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            response = cloudinary.api().deleteResources(publicIds, ObjectUtils.emptyMap());
+            outcome = "success";
+        } catch (Exception e) {
+            throw new IOException("Cloudinary bulk delete failed", e);
+        } finally {
+            sample.stop(timer("bulk_delete", outcome));
+        }
+        
+        Map<?, ?> statuses = (Map<?, ?>) response.get("deleted");
+        Set<String> failed = new HashSet<>();
+        for (String publicId : publicIds) {
+            Object status = statuses != null ? statuses.get(publicId) : null;
+            if (!"deleted".equals(status) && !"not_found".equals(status)) {
+                failed.add(publicId);
+            }
+        }
+        return failed;
+    }
+
+    // Per-request timeout options of the upload API are read in milliseconds, unlike the client-wide one
+    private int requestTimeoutMillis() {
+        return timeoutSeconds * 1000;
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return Timer.builder("cloudinary.requests")
+                .description("Latency of Cloudinary API calls")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     public String extractPublicIdFromUrl(String imageUrl) {
@@ -101,11 +173,4 @@ public class CloudinaryService {
         
         return afterUpload;
     }
-
-    @Data
-    @AllArgsConstructor
-    public static class CloudinaryUploadResult {
-        private final String imageUrl;
-        private final String publicId;
-    }
-} 
\ No newline at end of file
+}
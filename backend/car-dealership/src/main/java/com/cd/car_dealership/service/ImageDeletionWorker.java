@@ -0,0 +1,139 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.model.ImageDeletion;
+import com.cd.car_dealership.repository.ImageDeletionRepository;
+import com.cd.car_dealership.repository.ImageInfoRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Drains the image deletion outbox in batches, retrying failed deletions with exponential backoff.
+// Each batch is claimed in a short transaction that leases its rows (next_attempt_at moves past the
+// lease), the image store is called with no transaction or connection held, and the outcome is
+// recorded in a second short transaction. Rows of an instance that dies mid-call become due again
+// once the lease runs out.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImageDeletionWorker {
+    
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+    
+    private final ImageDeletionRepository imageDeletionRepository;
+    private final ImageInfoRepository imageInfoRepository;
+    private final ImageStore imageStore;
+    private final TransactionTemplate transactionTemplate;
+    
+    // Cloudinary's bulk delete accepts at most 100 public ids per call
+    @Value("${image.deletion.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${image.deletion.initial-backoff-ms:10000}")
+    private long initialBackoffMs;
+    
+    // Must outlast a bulk delete call (image.store.io.timeout), or another instance may claim the rows again
+    @Value("${image.deletion.lease-ms:300000}")
+    private long leaseMs;
+    
+    @Scheduled(fixedDelayString = "${image.deletion.poll-interval-ms:5000}")
+    public void drain() {
+        Claim claim;
+        do {
+            claim = transactionTemplate.execute(status -> claimBatch());
+            if (claim == null || claim.getClaimed() == 0) {
+                return;
+            }
+            if (!claim.getLeased().isEmpty()) {
+                deleteLeased(claim.getLeased());
+            }
+        } while (claim.getClaimed() == batchSize);
+    }
+    
+    // Images that a gallery entry still uses (identical uploads share stored images) are settled right away;
+    // the rest are leased. The reference check runs in the claim transaction: a gallery save that reuses an
+    // image either committed before it, or locks the image's outbox row after it and finds the row leased
+    // (see CarService.reserveStoredImages).
+    private Claim claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ImageDeletion> due = imageDeletionRepository.findDue(now, PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return new Claim(0, List.of());
+        }
+        
+        Set<String> referenced = imageInfoRepository.findReferencedPublicIds(
+                due.stream().map(ImageDeletion::getPublicId).collect(Collectors.toSet()));
+        List<ImageDeletion> leased = new ArrayList<>();
+        for (ImageDeletion deletion : due) {
+            if (referenced.contains(deletion.getPublicId())) {
+                imageDeletionRepository.delete(deletion);
+            } else {
+                deletion.setNextAttemptAt(now.plusNanos(leaseMs * 1_000_000));
+                leased.add(deletion);
+            }
+        }
+        return new Claim(due.size(), leased);
+    }
+    
+    private void deleteLeased(List<ImageDeletion> leased) {
+        List<String> publicIds = leased.stream()
+                .map(ImageDeletion::getPublicId)
+                .distinct()
+                .collect(Collectors.toList());
+        
+        Set<String> failed;
+        String error = null;
+        try {
+            failed = imageStore.deleteAll(publicIds);
+        } catch (Exception e) {
+            failed = new HashSet<>(publicIds);
+            error = e.toString();
+        }
+        
+        Set<String> failedIds = failed;
+        String failure = error != null ? error : "Image store did not confirm deletion";
+        transactionTemplate.executeWithoutResult(status -> {
+            // Re-read the leased rows; one that is already gone was settled elsewhere after its lease expired
+            for (ImageDeletion deletion : imageDeletionRepository.findAllById(
+                    leased.stream().map(ImageDeletion::getId).collect(Collectors.toList()))) {
+                if (failedIds.contains(deletion.getPublicId())) {
+                    reschedule(deletion, failure);
+                } else {
+                    imageDeletionRepository.delete(deletion);
+                }
+            }
+        });
+    }
+    
+    private void reschedule(ImageDeletion deletion, String error) {
+        int attempts = deletion.getAttempts() + 1;
+        long backoffMs = Math.min(initialBackoffMs << Math.min(attempts - 1, 20), MAX_BACKOFF.toMillis());
+        
+        deletion.setAttempts(attempts);
+        deletion.setNextAttemptAt(LocalDateTime.now().plusNanos(backoffMs * 1_000_000));
+        deletion.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        
+        log.warn("Failed to delete image {} (attempt {}): {}", deletion.getPublicId(), attempts, error);
+    }
+    
+    @Data
+    @AllArgsConstructor
+    private static class Claim {
+        // Rows taken from the outbox, leased or settled; a full batch means more may be due
+        private int claimed;
+        private List<ImageDeletion> leased;
+    }
+}
@@ -0,0 +1,357 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.model.Car;
+import com.cd.car_dealership.model.ImageDeletion;
+import com.cd.car_dealership.model.ImageInfo;
+import com.cd.car_dealership.repository.ImageDeletionRepository;
+import com.cd.car_dealership.repository.ImageInfoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Turns an uploaded photo into the sized variants the frontend needs: decodes it once, then scales and
+// encodes every variant in parallel on a CPU-sized pool and stores each one from an I/O pool through the
+// configured ImageStore.
+// Uploads are keyed by the SHA-256 of their content, an identical file reuses the stored variants.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageDerivativeService {
+
+    private final ImageStore imageStore;
+    private final ImageInfoRepository imageInfoRepository;
+    private final ImageDeletionRepository imageDeletionRepository;
+
+    // 0 = one thread per processor; scaling and encoding are CPU bound
+    @Value("${image.derivatives.concurrency:0}")
+    private int concurrency;
+
+    // Variant uploads block on the network rather than the CPU: three per concurrent gallery upload
+    @Value("${image.derivatives.upload-concurrency:24}")
+    private int uploadConcurrency;
+
+    @Value("${image.derivatives.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    // Identical files processed at the same time (e.g. twice in one batch) share a single result
+    private final Map<String, CompletableFuture<ImageDerivatives>> inFlight = new ConcurrentHashMap<>();
+
+    // Separate from ImageUploadPool: batch uploads run process() on that pool and wait for these tasks
+    private ExecutorService executor;
+    private ExecutorService uploadExecutor;
+
+    public enum Variant {
+        FULL(1200, 800),
+        CARD(640, 427),
+        THUMBNAIL(320, 213);
+
+        private final int maxWidth;
+        private final int maxHeight;
+
+        Variant(int maxWidth, int maxHeight) {
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        int threads = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "image-derivative-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger uploadThreadCount = new AtomicInteger();
+        this.uploadExecutor = Executors.newFixedThreadPool(uploadConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "image-variant-upload-" + uploadThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        uploadExecutor.shutdown();
+    }
+
+    public ImageDerivatives process(MultipartFile file) throws IOException {
+        Path original = MultipartFiles.transferToTempFile(file);
+        try {
+            String contentHash = sha256(original);
+            Optional<ImageInfo> existing = imageInfoRepository.findFirstByContentHash(contentHash);
+            if (existing.isPresent()) {
+                log.debug("Image {} matches stored image {}, reusing it", file.getOriginalFilename(), existing.get().getPublicId());
+                return ImageDerivatives.of(existing.get());
+            }
+
+            CompletableFuture<ImageDerivatives> own = new CompletableFuture<>();
+            CompletableFuture<ImageDerivatives> shared = inFlight.putIfAbsent(contentHash, own);
+            if (shared != null) {
+                return await(shared);
+            }
+            try {
+                ImageDerivatives derivatives = store(original, file.getOriginalFilename(), contentHash);
+                own.complete(derivatives);
+                return derivatives;
+            } catch (IOException | RuntimeException e) {
+                own.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(contentHash, own);
+            }
+        } finally {
+            Files.deleteIfExists(original);
+        }
+    }
+
+    private ImageDerivatives store(Path original, String filename, String contentHash) throws IOException {
+        BufferedImage decoded = decode(original);
+        if (decoded == null) {
+            // ImageIO has no reader for every allowed format (WebP), such images are stored as uploaded
+            log.debug("No decoder for image {}, storing it without variants", filename);
+            return new ImageDerivatives(contentHash, imageStore.upload(original, filename), null, null);
+        }
+
+        Map<Variant, CompletableFuture<ImageStore.StoredImage>> uploads = new EnumMap<>(Variant.class);
+        for (Variant variant : Variant.values()) {
+            uploads.put(variant, CompletableFuture.supplyAsync(() -> encodeVariant(decoded, variant), executor)
+                    .thenApplyAsync(this::uploadVariant, uploadExecutor));
+        }
+
+        Map<Variant, ImageStore.StoredImage> stored = new EnumMap<>(Variant.class);
+        Throwable failure = null;
+        for (Map.Entry<Variant, CompletableFuture<ImageStore.StoredImage>> upload : uploads.entrySet()) {
+            try {
+                stored.put(upload.getKey(), upload.getValue().join());
+            } catch (CompletionException e) {
+                failure = e.getCause();
+            }
+        }
+        if (failure != null) {
+            // Variants that did reach the store would never be referenced, hand them to the deletion outbox
+            imageDeletionRepository.saveAll(stored.values().stream()
+                    .map(image -> ImageDeletion.builder().publicId(image.getPublicId()).build())
+                    .collect(Collectors.toList()));
+            throw new IOException("Failed to store variants of image " + filename, failure);
+        }
+
+        log.debug("Stored {} variants of image {}", stored.size(), filename);
+        return new ImageDerivatives(contentHash,
+                stored.get(Variant.FULL), stored.get(Variant.CARD), stored.get(Variant.THUMBNAIL));
+    }
+
+    // Runs on the CPU pool; the returned temp file is deleted by uploadVariant
+    private Path encodeVariant(BufferedImage source, Variant variant) {
+        try {
+            Path encoded = Files.createTempFile("image-" + variant.name().toLowerCase() + "-", ".jpg");
+            try {
+                writeJpeg(scaleToFit(source, variant.maxWidth, variant.maxHeight), encoded);
+                return encoded;
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(encoded);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Runs on the I/O pool, so a slow image store holds up other uploads rather than resizing
+    private ImageStore.StoredImage uploadVariant(Path encoded) {
+        try {
+            try {
+                return imageStore.upload(encoded, encoded.getFileName().toString());
+            } finally {
+                Files.deleteIfExists(encoded);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Decodes the first frame, subsampling while reading by the largest whole factor that still covers the
+    // FULL variant, so a 4000x3000 photo is held as 1334x1000 instead of 48 MB of raster.
+    // Returns null when no ImageIO reader understands the file. Package-private for ImageDerivativeServiceTests.
+    static BufferedImage decode(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int step = Math.max(1, Math.min(width / Variant.FULL.maxWidth, height / Variant.FULL.maxHeight));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Package-private for ImageDerivativeServiceTests
+    static BufferedImage scaleToFit(BufferedImage source, int maxWidth, int maxHeight) {
+        double scale = Math.min(1.0, Math.min((double) maxWidth / source.getWidth(), (double) maxHeight / source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        // Halve step by step: a single bilinear pass over a large ratio skips most source pixels and aliases
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha channel, transparent areas become white instead of black
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static ImageDerivatives await(CompletableFuture<ImageDerivatives> shared) throws IOException {
+        try {
+            return shared.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an identical upload", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException("Identical upload failed", e.getCause());
+        }
+    }
+
+    // Stored images for one upload; card and thumbnail are null when the format could not be decoded
+    @Data
+    public static class ImageDerivatives {
+        private final String contentHash;
+        private final ImageStore.StoredImage full;
+        private final ImageStore.StoredImage card;
+        private final ImageStore.StoredImage thumbnail;
+        // Taken over from an earlier upload of the same content rather than stored for this one
+        private boolean reused;
+
+        static ImageDerivatives of(ImageInfo image) {
+            ImageDerivatives derivatives = new ImageDerivatives(image.getContentHash(),
+                    new ImageStore.StoredImage(image.getImageUrl(), image.getPublicId()),
+                    image.getCardUrl() != null ? new ImageStore.StoredImage(image.getCardUrl(), image.getCardPublicId()) : null,
+                    image.getThumbnailUrl() != null ? new ImageStore.StoredImage(image.getThumbnailUrl(), image.getThumbnailPublicId()) : null);
+            derivatives.setReused(true);
+            return derivatives;
+        }
+
+        public ImageInfo toImageInfo(Car car) {
+            return ImageInfo.builder()
+                    .car(car)
+                    .imageUrl(full.getImageUrl())
+                    .publicId(full.getPublicId())
+                    .cardUrl(card != null ? card.getImageUrl() : null)
+                    .cardPublicId(card != null ? card.getPublicId() : null)
+                    .thumbnailUrl(thumbnail != null ? thumbnail.getImageUrl() : null)
+                    .thumbnailPublicId(thumbnail != null ? thumbnail.getPublicId() : null)
+                    .contentHash(contentHash)
+                    .build();
+        }
+
+        public List<String> publicIds() {
+            return Stream.of(full, card, thumbnail)
+                    .filter(Objects::nonNull)
+                    .map(ImageStore.StoredImage::getPublicId)
+                    .collect(Collectors.toList());
+        }
+    }
+}
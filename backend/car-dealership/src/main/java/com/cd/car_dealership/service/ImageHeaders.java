@@ -0,0 +1,175 @@
+package com.cd.car_dealership.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+// Reads format and pixel dimensions from the first bytes of an image without decoding it.
+// PNG, GIF and WebP keep them within the first 30 bytes; JPEG segments are skipped (not buffered)
+// until the frame header, so only a small fixed buffer is ever allocated.
+final class ImageHeaders {
+
+    // JPEG metadata (EXIF thumbnails, ICC profiles) can push the frame header past the first few KB
+    private static final long MAX_JPEG_SCAN = 512 * 1024;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    enum Format { JPEG, PNG, GIF, WEBP }
+
+    @Data
+    @AllArgsConstructor
+    static class ImageHeader {
+        private final Format format;
+        private final int width;
+        private final int height;
+    }
+
+    private ImageHeaders() {
+    }
+
+    // Empty when the content is not a well-formed JPEG, PNG, GIF or WebP header
+    static Optional<ImageHeader> read(InputStream in) throws IOException {
+        byte[] head = new byte[30];
+        int length = in.readNBytes(head, 0, head.length);
+
+        if (length >= 2 && u8(head, 0) == 0xFF && u8(head, 1) == 0xD8) {
+            return readJpeg(in, head, length);
+        }
+        if (length >= 24 && startsWith(head, PNG_SIGNATURE) && ascii(head, 12, "IHDR")) {
+            return header(Format.PNG, be32(head, 16), be32(head, 20));
+        }
+        if (length >= 10 && (ascii(head, 0, "GIF87a") || ascii(head, 0, "GIF89a"))) {
+            return header(Format.GIF, le16(head, 6), le16(head, 8));
+        }
+        if (length >= 30 && ascii(head, 0, "RIFF") && ascii(head, 8, "WEBP")) {
+            return readWebp(head);
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<ImageHeader> readWebp(byte[] head) {
+        if (ascii(head, 12, "VP8X")) {
+            // Extended format: 24-bit canvas width and height minus one
+            return header(Format.WEBP, le24(head, 24) + 1, le24(head, 27) + 1);
+        }
+        if (ascii(head, 12, "VP8 ") && u8(head, 23) == 0x9D && u8(head, 24) == 0x01 && u8(head, 25) == 0x2A) {
+            // Lossy key frame: 14-bit dimensions after the start code, top bits are scaling
+            return header(Format.WEBP, le16(head, 26) & 0x3FFF, le16(head, 28) & 0x3FFF);
+        }
+        if (ascii(head, 12, "VP8L") && u8(head, 20) == 0x2F) {
+            // Lossless: width and height minus one packed into 14 bits each
+            long bits = u8(head, 21) | (u8(head, 22) << 8) | (u8(head, 23) << 16) | ((long) u8(head, 24) << 24);
+            return header(Format.WEBP, (int) (bits & 0x3FFF) + 1, (int) ((bits >> 14) & 0x3FFF) + 1);
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<ImageHeader> readJpeg(InputStream rest, byte[] head, int length) throws IOException {
+        JpegReader jpeg = new JpegReader(head, length, rest);
+        jpeg.skip(2);
+        while (jpeg.position < MAX_JPEG_SCAN) {
+            if (jpeg.read() != 0xFF) {
+                return Optional.empty();
+            }
+            int marker = jpeg.read();
+            while (marker == 0xFF) {
+                marker = jpeg.read();
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                continue;
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                // End of image or start of scan before any frame header
+                return Optional.empty();
+            }
+            int segmentLength = (jpeg.read() << 8) | jpeg.read();
+            if (segmentLength < 2) {
+                return Optional.empty();
+            }
+            // SOF0-SOF15 except DHT (C4), JPG (C8) and DAC (CC)
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                jpeg.skip(1);
+                int height = (jpeg.read() << 8) | jpeg.read();
+                int width = (jpeg.read() << 8) | jpeg.read();
+                return header(Format.JPEG, width, height);
+            }
+            jpeg.skip(segmentLength - 2);
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<ImageHeader> header(Format format, long width, long height) {
+        if (width <= 0 || height <= 0 || width > Integer.MAX_VALUE || height > Integer.MAX_VALUE) {
+            return Optional.empty();
+        }
+        return Optional.of(new ImageHeader(format, (int) width, (int) height));
+    }
+
+    // Continues after the bytes already read into head, then from the stream itself
+    private static final class JpegReader {
+        private final byte[] head;
+        private final int headLength;
+        private final InputStream in;
+        private long position;
+
+        JpegReader(byte[] head, int headLength, InputStream in) {
+            this.head = head;
+            this.headLength = headLength;
+            this.in = in;
+        }
+
+        int read() throws IOException {
+            int value = position < headLength ? u8(head, (int) position) : in.read();
+            if (value < 0) {
+                throw new EOFException("Truncated JPEG header");
+            }
+            position++;
+            return value;
+        }
+
+        void skip(long count) throws IOException {
+            long fromHead = Math.max(0, Math.min(count, headLength - position));
+            position += fromHead;
+            in.skipNBytes(count - fromHead);
+            position += count - fromHead;
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean ascii(byte[] bytes, int offset, String expected) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (bytes[offset + i] != (byte) expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int u8(byte[] bytes, int offset) {
+        return bytes[offset] & 0xFF;
+    }
+
+    private static int le16(byte[] bytes, int offset) {
+        return u8(bytes, offset) | (u8(bytes, offset + 1) << 8);
+    }
+
+    private static int le24(byte[] bytes, int offset) {
+        return le16(bytes, offset) | (u8(bytes, offset + 2) << 16);
+    }
+
+    private static long be32(byte[] bytes, int offset) {
+        return ((long) u8(bytes, offset) << 24) | (u8(bytes, offset + 1) << 16) | (u8(bytes, offset + 2) << 8) | u8(bytes, offset + 3);
+    }
+}
@@ -0,0 +1,51 @@
+package com.cd.car_dealership.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Backend that stores gallery images; selected with the image.store property
+public interface ImageStore {
+    
+    // Stores a file from local disk; the filename only contributes its extension
+    StoredImage upload(Path file, String filename) throws IOException;
+    
+    // With the servlet part already on disk the transfer is a rename, so nothing is buffered on the heap
+    default StoredImage upload(MultipartFile file) throws IOException {
+        Path tempFile = MultipartFiles.transferToTempFile(file);
+        try {
+            return upload(tempFile, file.getOriginalFilename());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+    
+    void delete(String publicId) throws IOException;
+    
+    // Deletes a batch of images and returns the public ids that could not be deleted
+    default Set<String> deleteAll(List<String> publicIds) throws IOException {
+        Set<String> failed = new HashSet<>();
+        for (String publicId : publicIds) {
+            try {
+                delete(publicId);
+            } catch (IOException e) {
+                failed.add(publicId);
+            }
+        }
+        return failed;
+    }
+    
+    @Data
+    @AllArgsConstructor
+    class StoredImage {
+        private final String imageUrl;
+        private final String publicId;
+    }
+}
@@ -0,0 +1,11 @@
+package com.cd.car_dealership.service;
+
+import java.io.IOException;
+
+// The image backend was not called: its circuit is open, its pool is saturated or the call timed out
+public class ImageStoreUnavailableException extends IOException {
+    
+    public ImageStoreUnavailableException(String message) {
+        super(message);
+    }
+}
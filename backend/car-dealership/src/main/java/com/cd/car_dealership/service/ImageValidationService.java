@@ -1,12 +1,16 @@
 package com.cd.car_dealership.service;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
+@Slf4j
 @Service
 public class ImageValidationService {
     
@@ -16,8 +20,6 @@ public class ImageValidationService {
     private static final int MAX_HEIGHT = 4000;
     
     public void validateImage(MultipartFile file) throws IllegalArgumentException {
-        System.out.println("Validating image: " + (file != null ? file.getOriginalFilename() : "null"));
-        
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File is empty or null");
         }
@@ -41,7 +43,25 @@ public class ImageValidationService {
             throw new IllegalArgumentException("File is not an image");
         }
         
-        System.out.println("Image validation passed: " + originalFilename + " (" + contentType + ")");
+        // Name and Content-Type come from the client; the header bytes decide what the file really is
+        ImageHeaders.ImageHeader header = readHeader(file)
+                .orElseThrow(() -> new IllegalArgumentException("File content is not a JPEG, PNG, GIF or WebP image"));
+        if (header.getWidth() > MAX_WIDTH || header.getHeight() > MAX_HEIGHT) {
+            throw new IllegalArgumentException("Image dimensions " + header.getWidth() + "x" + header.getHeight()
+                    + " exceed maximum of " + MAX_WIDTH + "x" + MAX_HEIGHT);
+        }
+        
+        log.debug("Image validation passed: {} ({} {}x{})", originalFilename, header.getFormat(),
+                header.getWidth(), header.getHeight());
+    }
+    
+    private Optional<ImageHeaders.ImageHeader> readHeader(MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return ImageHeaders.read(in);
+        } catch (IOException e) {
+            // Truncated or unreadable headers are rejected like any other invalid image
+            return Optional.empty();
+        }
     }
     
     private String getFileExtension(String filename) {
@@ -0,0 +1,416 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.dto.CarSearchCriteria;
+import com.cd.car_dealership.dto.FacetCountDTO;
+import com.cd.car_dealership.dto.InventoryFacetsDTO;
+import com.cd.car_dealership.repository.CarRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// In-process columnar copy of the filterable car attributes. Brand, fuel type and transmission are
+// dictionary-encoded, numeric attributes live in primitive arrays, so facet lists and range pre-checks
+// never touch the database. CarService keeps it current on every write; it is rebuilt from the
+// database on startup and after bulk imports.
+//
+// It only reflects writes made through this instance. With several instances writing to one database,
+// or rows changed by hand in SQL, set inventory.index.skip-unmatched-searches=false so searches always
+// reach the database instead of trusting a stale index; facet lists then lag until the next rebuild.
+@Component
+@RequiredArgsConstructor
+public class InventoryIndex implements SmartInitializingSingleton {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final CarRepository carRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${inventory.index.skip-unmatched-searches:true}")
+    private boolean skipUnmatchedSearches = true;
+
+    // Readers pick up the current columns without any index-wide lock; rebuild swaps in a new instance
+    private volatile Columns current = new Columns();
+    // Orders upserts and removes against the swap, and against each other
+    private final ReentrantLock changeLock = new ReentrantLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Changes applied while a rebuild is streaming the table, replayed onto the new columns before the swap
+    private List<Consumer<Columns>> changesDuringRebuild;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    // Streams the table into fresh columns while reads and writes keep using the current ones. A change
+    // committed after the stream's snapshot was taken would be missing from it, so every change made
+    // during the rebuild is replayed in order (upserts and removes are idempotent) before the swap.
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            List<Consumer<Columns>> changes = new ArrayList<>();
+            changeLock.lock();
+            try {
+                changesDuringRebuild = changes;
+            } finally {
+                changeLock.unlock();
+            }
+
+            Columns rebuilt = new Columns();
+            boolean complete = false;
+            try {
+                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+                transactionTemplate.setReadOnly(true);
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<CarDTO> cars = carRepository.streamAll()) {
+                        cars.forEach(rebuilt::write);
+                    }
+                });
+                complete = true;
+            } finally {
+                changeLock.lock();
+                try {
+                    changesDuringRebuild = null;
+                    if (complete) {
+                        changes.forEach(change -> change.accept(rebuilt));
+                        current = rebuilt;
+                    }
+                } finally {
+                    changeLock.unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // Applied after commit when called inside a transaction, so rolled back writes never show up
+    public void upsert(CarDTO car) {
+        afterCommit(() -> apply(columns -> columns.write(car)));
+    }
+
+    public void remove(Long carId) {
+        afterCommit(() -> apply(columns -> columns.delete(carId)));
+    }
+
+    public List<String> brands() {
+        return current.values(Columns::brands);
+    }
+
+    public List<String> fuelTypes() {
+        return current.values(Columns::fuelTypes);
+    }
+
+    public InventoryFacetsDTO facets() {
+        return current.facets();
+    }
+
+    // False only when no car can satisfy the criteria, letting search skip the database entirely.
+    // Model and the free-text query are not indexed, so a true result still needs the real query.
+    // Always true when skipping is disabled for deployments where this index can miss writes.
+    public boolean mayMatch(CarSearchCriteria criteria) {
+        return !skipUnmatchedSearches || current.mayMatch(criteria);
+    }
+
+    private void apply(Consumer<Columns> change) {
+        changeLock.lock();
+        try {
+            change.accept(current);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // One complete copy of the index. Its lock is only ever held for a single row change or a scan
+    // over primitive arrays, never across a database call.
+    private static class Columns {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, Integer> rowsById = new HashMap<>();
+        private final Dictionary brands = new Dictionary();
+        private final Dictionary fuelTypes = new Dictionary();
+        private final Dictionary transmissions = new Dictionary();
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private int[] brandCodes = new int[INITIAL_CAPACITY];
+        private int[] fuelTypeCodes = new int[INITIAL_CAPACITY];
+        private int[] transmissionCodes = new int[INITIAL_CAPACITY];
+        private int[] years = new int[INITIAL_CAPACITY];
+        private int[] mileages = new int[INITIAL_CAPACITY];
+        private long[] pricesInCents = new long[INITIAL_CAPACITY];
+        private int[] engineCapacitiesCc = new int[INITIAL_CAPACITY];
+        private int size;
+
+        Dictionary brands() {
+            return brands;
+        }
+
+        Dictionary fuelTypes() {
+            return fuelTypes;
+        }
+
+        InventoryFacetsDTO facets() {
+            lock.readLock().lock();
+            try {
+                InventoryFacetsDTO.InventoryFacetsDTOBuilder facets = InventoryFacetsDTO.builder()
+                        .totalCars(size)
+                        .brands(brands.counts())
+                        .fuelTypes(fuelTypes.counts())
+                        .transmissions(transmissions.counts());
+                if (size > 0) {
+                    facets.minYear(min(years)).maxYear(max(years))
+                            .minMileage(min(mileages)).maxMileage(max(mileages))
+                            .minPrice(BigDecimal.valueOf(min(pricesInCents), 2))
+                            .maxPrice(BigDecimal.valueOf(max(pricesInCents), 2))
+                            .minEngineCapacity(min(engineCapacitiesCc) / 1000.0)
+                            .maxEngineCapacity(max(engineCapacitiesCc) / 1000.0);
+                }
+                return facets.build();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        boolean mayMatch(CarSearchCriteria criteria) {
+            lock.readLock().lock();
+            try {
+                boolean[] brandMatches = brands.matching(criteria.getBrand());
+                boolean[] fuelTypeMatches = fuelTypes.matching(criteria.getFuelType());
+                int minYear = criteria.getMinYear() != null ? criteria.getMinYear() : Integer.MIN_VALUE;
+                int maxYear = criteria.getMaxYear() != null ? criteria.getMaxYear() : Integer.MAX_VALUE;
+                int minMileage = criteria.getMinMileage() != null ? criteria.getMinMileage() : Integer.MIN_VALUE;
+                int maxMileage = criteria.getMaxMileage() != null ? criteria.getMaxMileage() : Integer.MAX_VALUE;
+                long minPrice = criteria.getMinPrice() != null ? toCents(criteria.getMinPrice(), RoundingMode.CEILING) : Long.MIN_VALUE;
+                long maxPrice = criteria.getMaxPrice() != null ? toCents(criteria.getMaxPrice(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+                int minEngine = criteria.getMinEngineCapacity() != null ? toCc(criteria.getMinEngineCapacity()) : Integer.MIN_VALUE;
+                int maxEngine = criteria.getMaxEngineCapacity() != null ? toCc(criteria.getMaxEngineCapacity()) : Integer.MAX_VALUE;
+
+                for (int row = 0; row < size; row++) {
+                    if ((brandMatches == null || brandMatches[brandCodes[row]])
+                            && (fuelTypeMatches == null || fuelTypeMatches[fuelTypeCodes[row]])
+                            && years[row] >= minYear && years[row] <= maxYear
+                            && mileages[row] >= minMileage && mileages[row] <= maxMileage
+                            && pricesInCents[row] >= minPrice && pricesInCents[row] <= maxPrice
+                            && engineCapacitiesCc[row] >= minEngine && engineCapacitiesCc[row] <= maxEngine) {
+                        return true;
+                    }
+                }
+                return false;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<String> values(Function<Columns, Dictionary> dictionary) {
+            lock.readLock().lock();
+            try {
+                return dictionary.apply(this).counts().stream()
+                        .map(FacetCountDTO::getValue)
+                        .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void write(CarDTO car) {
+            lock.writeLock().lock();
+            try {
+                Integer existing = rowsById.get(car.getId());
+                int row;
+                if (existing != null) {
+                    row = existing;
+                    brands.release(brandCodes[row]);
+                    fuelTypes.release(fuelTypeCodes[row]);
+                    transmissions.release(transmissionCodes[row]);
+                } else {
+                    ensureCapacity(size + 1);
+                    row = size++;
+                    rowsById.put(car.getId(), row);
+                }
+
+                ids[row] = car.getId();
+                brandCodes[row] = brands.acquire(car.getBrand());
+                fuelTypeCodes[row] = fuelTypes.acquire(car.getFuelType());
+                transmissionCodes[row] = transmissions.acquire(car.getTransmission());
+                years[row] = car.getProductionYear();
+                mileages[row] = car.getMileage();
+                pricesInCents[row] = toCents(car.getPrice(), RoundingMode.HALF_UP);
+                engineCapacitiesCc[row] = toCc(car.getEngineCapacity());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void delete(Long carId) {
+            lock.writeLock().lock();
+            try {
+                Integer removed = rowsById.remove(carId);
+                if (removed == null) {
+                    return;
+                }
+                int row = removed;
+                brands.release(brandCodes[row]);
+                fuelTypes.release(fuelTypeCodes[row]);
+                transmissions.release(transmissionCodes[row]);
+
+                // Keep rows dense by moving the last row into the freed slot
+                int last = --size;
+                if (row != last) {
+                    ids[row] = ids[last];
+                    brandCodes[row] = brandCodes[last];
+                    fuelTypeCodes[row] = fuelTypeCodes[last];
+                    transmissionCodes[row] = transmissionCodes[last];
+                    years[row] = years[last];
+                    mileages[row] = mileages[last];
+                    pricesInCents[row] = pricesInCents[last];
+                    engineCapacitiesCc[row] = engineCapacitiesCc[last];
+                    rowsById.put(ids[row], row);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, newCapacity);
+            brandCodes = Arrays.copyOf(brandCodes, newCapacity);
+            fuelTypeCodes = Arrays.copyOf(fuelTypeCodes, newCapacity);
+            transmissionCodes = Arrays.copyOf(transmissionCodes, newCapacity);
+            years = Arrays.copyOf(years, newCapacity);
+            mileages = Arrays.copyOf(mileages, newCapacity);
+            pricesInCents = Arrays.copyOf(pricesInCents, newCapacity);
+            engineCapacitiesCc = Arrays.copyOf(engineCapacitiesCc, newCapacity);
+        }
+
+        private int min(int[] column) {
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < size; row++) {
+                min = Math.min(min, column[row]);
+            }
+            return min;
+        }
+
+        private int max(int[] column) {
+            int max = Integer.MIN_VALUE;
+            for (int row = 0; row < size; row++) {
+                max = Math.max(max, column[row]);
+            }
+            return max;
+        }
+
+        private long min(long[] column) {
+            long min = Long.MAX_VALUE;
+            for (int row = 0; row < size; row++) {
+                min = Math.min(min, column[row]);
+            }
+            return min;
+        }
+
+        private long max(long[] column) {
+            long max = Long.MIN_VALUE;
+            for (int row = 0; row < size; row++) {
+                max = Math.max(max, column[row]);
+            }
+            return max;
+        }
+    }
+
+    private static long toCents(BigDecimal price, RoundingMode roundingMode) {
+        return price.movePointRight(2).setScale(0, roundingMode).longValue();
+    }
+
+    private static int toCc(Double engineCapacity) {
+        return (int) Math.round(engineCapacity * 1000);
+    }
+
+    // Value <-> code mapping with a live row count per code. Codes are never reused, values
+    // whose count drops to zero are simply left out of facet lists.
+    private static class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private int[] counts = new int[16];
+
+        int acquire(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+                if (code == counts.length) {
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                }
+            }
+            counts[code]++;
+            return code;
+        }
+
+        void release(int code) {
+            counts[code]--;
+        }
+
+        // Codes whose value contains the term (case-insensitive), or null when there is no term
+        boolean[] matching(String term) {
+            if (term == null || term.isBlank()) {
+                return null;
+            }
+            String needle = term.trim().toLowerCase(Locale.ROOT);
+            boolean[] matches = new boolean[values.size()];
+            for (int code = 0; code < values.size(); code++) {
+                matches[code] = counts[code] > 0 && values.get(code).toLowerCase(Locale.ROOT).contains(needle);
+            }
+            return matches;
+        }
+
+        List<FacetCountDTO> counts() {
+            List<FacetCountDTO> facets = new ArrayList<>();
+            for (int code = 0; code < values.size(); code++) {
+                if (counts[code] > 0) {
+                    facets.add(new FacetCountDTO(values.get(code), counts[code]));
+                }
+            }
+            facets.sort(Comparator.comparing(FacetCountDTO::getValue));
+            return facets;
+        }
+    }
+}
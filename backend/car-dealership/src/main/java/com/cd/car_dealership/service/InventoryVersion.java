@@ -0,0 +1,69 @@
+package com.cd.car_dealership.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Validator for HTTP caching of inventory reads: a counter bumped after every committed change to cars
+// or galleries, plus the time of that change. The ETag carries a per-start epoch so counters from
+// earlier runs never match. Like InventoryIndex it only sees writes made through this instance.
+@Component
+public class InventoryVersion {
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    // Replaced atomically so the ETag and Last-Modified handed out always belong together. A CAS instead of
+    // a monitor keeps request threads from ever parking here (virtual threads would pin their carrier).
+    private final AtomicReference<Snapshot> current =
+            new AtomicReference<>(new Snapshot(epoch, 0, Instant.now().truncatedTo(ChronoUnit.SECONDS)));
+
+    public Snapshot current() {
+        return current.get();
+    }
+
+    // Applied after commit when called inside a transaction, so clients never revalidate against a rolled back change
+    public void bump() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    advance();
+                }
+            });
+        } else {
+            advance();
+        }
+    }
+
+    private void advance() {
+        // HTTP dates have second precision; the ETag still tells apart changes within the same second
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        current.updateAndGet(previous -> new Snapshot(epoch, previous.version + 1, now));
+    }
+
+    public static final class Snapshot {
+
+        private final String etag;
+        private final long version;
+        private final Instant lastModified;
+
+        private Snapshot(String epoch, long version, Instant lastModified) {
+            this.etag = "\"" + epoch + "-" + version + "\"";
+            this.version = version;
+            this.lastModified = lastModified;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public Instant getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -1,26 +1,79 @@
 package com.cd.car_dealership.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
+    private final MeterRegistry meterRegistry;
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration-ms:3600000}")
     private long expirationMs;
 
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    // Built once; both are immutable and safe to share between request threads
+    private Key signingKey;
+    private JwtParser parser;
+
+    // Recently verified tokens keyed by SHA-256 of the token, so raw tokens are never kept in memory.
+    // Bounded by jwt.verified-cache-size, and each entry expires with its token.
+    private Cache<String, Claims> verifiedTokens;
+
+    // jwt.verification, tagged by how the token was resolved
+    private Timer cacheHitTimer;
+    private Timer verifiedTimer;
+    private Timer rejectedTimer;
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secret);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(Expiry.creating((String key, Claims claims) ->
+                        Duration.between(Instant.now(), claims.getExpiration().toInstant())))
+                .build();
+        this.cacheHitTimer = verificationTimer("cache_hit");
+        this.verifiedTimer = verificationTimer("verified");
+        this.rejectedTimer = verificationTimer("rejected");
+    }
+
     public String generateToken(String subject, Map<String, Object> extraClaims) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + expirationMs);
@@ -29,43 +82,81 @@ public class JwtService {
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiry)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public boolean isTokenValid(String token) {
+    // Verifies signature and expiry at most once per token; returns empty for invalid or expired tokens
+    public Optional<Claims> verify(String token) {
+        long start = System.nanoTime();
+        Optional<Claims> claims = Optional.empty();
+        Timer timer = rejectedTimer;
         try {
-            Claims claims = extractAllClaims(token);
-            return claims.getExpiration().after(new Date());
-        } catch (Exception e) {
-            return false;
+            if (token == null || token.isEmpty()) {
+                return claims;
+            }
+
+            String key = hash(token);
+            Claims cached = verifiedTokens.getIfPresent(key);
+            if (cached != null) {
+                if (isUnexpired(cached)) {
+                    timer = cacheHitTimer;
+                    claims = Optional.of(cached);
+                } else {
+                    verifiedTokens.invalidate(key);
+                }
+                return claims;
+            }
+
+            Claims parsed = parser.parseClaimsJws(token).getBody();
+            if (isUnexpired(parsed)) {
+                verifiedTokens.put(key, parsed);
+                timer = verifiedTimer;
+                claims = Optional.of(parsed);
+            }
+            return claims;
+        } catch (JwtException | IllegalArgumentException e) {
+            return claims;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
+    public boolean isTokenValid(String token) {
+        return verify(token).isPresent();
+    }
+
+    // Both return null for a token that does not verify
     public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
+        return verify(token).map(Claims::getSubject).orElse(null);
     }
 
     public String extractRole(String token) {
-        Object role = extractAllClaims(token).get("role");
-        return role == null ? null : role.toString();
+        return verify(token).map(this::extractRole).orElse(null);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public String extractRole(Claims claims) {
+        Object role = claims.get("role");
+        return role == null ? null : role.toString();
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private Timer verificationTimer(String result) {
+        return Timer.builder("jwt.verification")
+                .description("Time to resolve a bearer token to its claims")
+                .tag("result", result)
+                .register(meterRegistry);
     }
-}
-
-
-
 
+    private boolean isUnexpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().after(new Date());
+    }
 
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
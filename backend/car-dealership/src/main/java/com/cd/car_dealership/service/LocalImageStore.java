@@ -0,0 +1,105 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.config.ImageStoreConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+// Stores images on local disk (image.store=local), served by ImageController.
+// Files are named after the SHA-256 of their content, so identical uploads share one file
+// and the name doubles as a strong ETag.
+@Service
+@Qualifier(ImageStoreConfig.BACKEND)
+@ConditionalOnProperty(name = "image.store", havingValue = "local")
+public class LocalImageStore implements ImageStore {
+    
+    // <2 hex shard>/<64 hex sha-256>[.ext]
+    private static final Pattern PUBLIC_ID = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{64}(\\.[a-z0-9]{1,5})?");
+    private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,5}");
+    
+    @Value("${image.store.local.root:./data/images}")
+    private String rootDirectory;
+    
+    @Value("${image.store.local.base-url:/api/images}")
+    private String baseUrl;
+    
+    private Path root;
+    private Path incoming;
+    
+    @PostConstruct
+    public void init() throws IOException {
+        this.root = Paths.get(rootDirectory).toAbsolutePath().normalize();
+        // Uploads land next to their final location so the publishing move is an atomic rename
+        this.incoming = Files.createDirectories(root.resolve(".incoming"));
+    }
+    
+    @Override
+    public StoredImage upload(Path file, String filename) throws IOException {
+        Path tempFile = incoming.resolve(UUID.randomUUID().toString());
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                Files.copy(in, tempFile);
+            }
+            
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String extension = MultipartFiles.extensionOf(filename);
+            String publicId = hash.substring(0, 2) + "/" + hash
+                    + (EXTENSION.matcher(extension).matches() ? extension : "");
+            Path target = root.resolve(publicId);
+            
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new StoredImage(baseUrl + "/" + publicId, publicId);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+    
+    @Override
+    public void delete(String publicId) throws IOException {
+        Optional<Path> path = resolve(publicId);
+        if (path.isPresent()) {
+            try {
+                Files.delete(path.get());
+            } catch (NoSuchFileException e) {
+                // Already gone; deletions are retried so this must be idempotent
+            }
+        }
+    }
+    
+    // Maps a public id to its file, rejecting anything that is not a content-hash name
+    public Optional<Path> resolve(String publicId) {
+        if (publicId == null || !PUBLIC_ID.matcher(publicId).matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(root.resolve(publicId));
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
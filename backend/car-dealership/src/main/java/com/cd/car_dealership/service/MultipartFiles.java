@@ -0,0 +1,38 @@
+package com.cd.car_dealership.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+// Helpers for handing multipart uploads to storage clients without buffering them on the heap
+final class MultipartFiles {
+    
+    private MultipartFiles() {
+    }
+    
+    // Moves the upload into a fresh temp file. With the servlet part already on disk this is a rename
+    // (or an NIO file copy across file systems), so heap use stays constant whatever the file size.
+    // The caller owns the returned file and must delete it.
+    static Path transferToTempFile(MultipartFile file) throws IOException {
+        Path target = Path.of(System.getProperty("java.io.tmpdir"),
+                "upload-" + UUID.randomUUID() + extensionOf(file.getOriginalFilename()));
+        try {
+            file.transferTo(target.toFile());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return target;
+    }
+    
+    static String extensionOf(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        int lastDotIndex = filename.lastIndexOf('.');
+        return lastDotIndex == -1 ? "" : filename.substring(lastDotIndex).toLowerCase();
+    }
+}
@@ -0,0 +1,38 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.dto.CarSearchCriteria;
+import com.cd.car_dealership.repository.ReactiveCarRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Read side of the reactive catalogue. Runs on event-loop threads, so nothing here may block on I/O.
+// Every query goes through R2DBC. The inventory index check scans primitive arrays in memory: InventoryIndex
+// rebuilds off-lock and swaps the result in, so this only ever waits behind a single-row index update.
+@Service
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveCatalogService {
+
+    private final ReactiveCarRepository reactiveCarRepository;
+    private final InventoryIndex inventoryIndex;
+
+    public Flux<CarDTO> getCars(Integer limit) {
+        return reactiveCarRepository.findAll(limit);
+    }
+
+    public Flux<CarDTO> searchCars(CarSearchCriteria criteria) {
+        // Same shortcut as CarService: filters no listing can satisfy never reach the database
+        if (!inventoryIndex.mayMatch(criteria)) {
+            return Flux.empty();
+        }
+        return reactiveCarRepository.search(criteria);
+    }
+
+    public Mono<CarDTO> getCarById(Long id) {
+        return reactiveCarRepository.findById(id);
+    }
+}
@@ -0,0 +1,204 @@
+package com.cd.car_dealership.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Wraps the configured image backend (see ImageStoreConfig) so remote image I/O cannot exhaust request
+// threads: every call runs on a dedicated bounded pool, callers wait at most the configured timeout, and
+// a circuit breaker fails calls immediately while the backend keeps failing. Callers get an
+// ImageStoreUnavailableException instead; deletions stay in the outbox and are retried later.
+@Slf4j
+public class ResilientImageStore implements ImageStore {
+    
+    private final ImageStore delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    
+    public ResilientImageStore(ImageStore delegate, int concurrency, int queueCapacity, Duration timeout,
+                               int failureThreshold, Duration openDuration, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.timeout = timeout;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        this.meterRegistry = meterRegistry;
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        // AbortPolicy rather than CallerRuns: running the call on the caller's thread is what the pool prevents
+        this.executor = new ThreadPoolExecutor(
+                concurrency, concurrency,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-store-io-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+        
+        // executor.queued, executor.active, executor.pool.size, ... tagged name=image-store
+        new ExecutorServiceMetrics(executor, "image-store", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("image.store.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                .description("Image store circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public StoredImage upload(Path file, String filename) throws IOException {
+        return call("upload", () -> delegate.upload(file, filename));
+    }
+    
+    @Override
+    public void delete(String publicId) throws IOException {
+        call("delete", () -> {
+            delegate.delete(publicId);
+            return null;
+        });
+    }
+    
+    @Override
+    public Set<String> deleteAll(List<String> publicIds) throws IOException {
+        return call("bulk_delete", () -> delegate.deleteAll(publicIds));
+    }
+    
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    private <T> T call(String operation, Callable<T> action) throws IOException {
+        if (!circuitBreaker.tryAcquire()) {
+            rejected(operation, "circuit_open");
+            throw new ImageStoreUnavailableException("Image store is unavailable, retry later");
+        }
+        
+        Future<T> future;
+        try {
+            future = executor.submit(action);
+        } catch (RejectedExecutionException e) {
+            circuitBreaker.onRejected();
+            rejected(operation, "bulkhead_full");
+            throw new ImageStoreUnavailableException("Image store is saturated, retry later");
+        }
+        
+        try {
+            T result = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            circuitBreaker.onFailure();
+            rejected(operation, "timeout");
+            throw new ImageStoreUnavailableException("Image store " + operation + " timed out after " + timeout);
+        } catch (ExecutionException e) {
+            circuitBreaker.onFailure();
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException("Image store " + operation + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            circuitBreaker.onRejected();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for image store " + operation, e);
+        }
+    }
+    
+    private void rejected(String operation, String reason) {
+        Counter.builder("image.store.rejections")
+                .description("Image store calls failed fast instead of reaching the backend")
+                .tag("operation", operation)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+    
+    // Opens after failureThreshold consecutive failures, fails every call for openDuration, then lets
+    // a single trial call through: its success closes the circuit, its failure opens it again.
+    static final class CircuitBreaker {
+        
+        enum State { CLOSED, OPEN, HALF_OPEN }
+        
+        private final int failureThreshold;
+        private final long openNanos;
+        
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean trialInFlight;
+        
+        CircuitBreaker(int failureThreshold, Duration openDuration) {
+            this.failureThreshold = failureThreshold;
+            this.openNanos = openDuration.toNanos();
+        }
+        
+        synchronized boolean tryAcquire() {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+            }
+            return true;
+        }
+        
+        synchronized void onSuccess() {
+            if (state != State.CLOSED) {
+                log.info("Image store recovered, closing circuit");
+            }
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            trialInFlight = false;
+        }
+        
+        synchronized void onFailure() {
+            trialInFlight = false;
+            if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+                if (state != State.OPEN) {
+                    log.warn("Image store failing, opening circuit");
+                }
+                state = State.OPEN;
+                openedAt = System.nanoTime();
+                consecutiveFailures = 0;
+            }
+        }
+        
+        // The call never reached the backend, so it says nothing about its health
+        synchronized void onRejected() {
+            trialInFlight = false;
+        }
+        
+        synchronized State state() {
+            return state;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.config.ImageStoreConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+// Offline stand-in for tests and load tests (image.store=stub); nothing is stored or sent anywhere
+@Service
+@Qualifier(ImageStoreConfig.BACKEND)
+@ConditionalOnProperty(name = "image.store", havingValue = "stub")
+public class StubImageStore implements ImageStore {
+    
+    @Value("${image.store.stub.latency-ms:0}")
+    private long latencyMs;
+    
+    @Override
+    public StoredImage upload(Path file, String filename) {
+        simulateLatency();
+        String publicId = "stub/" + UUID.randomUUID();
+        return new StoredImage("https://images.stub.invalid/" + publicId + ".jpg", publicId);
+    }
+    
+    @Override
+    public void delete(String publicId) {
+        simulateLatency();
+    }
+    
+    private void simulateLatency() {
+        if (latencyMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
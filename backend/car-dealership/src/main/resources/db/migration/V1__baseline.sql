@@ -0,0 +1,35 @@
+-- Schema as generated by Hibernate (ddl-auto=update) before migrations took over: identity ids, no
+-- secondary indexes. Existing databases are baselined at this version (spring.flyway.baseline-on-migrate)
+-- and skip it. Everything added since lives in the later migrations, written with IF NOT EXISTS because
+-- a baselined database may have been updated by Hibernate past this point.
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE cars (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    brand VARCHAR(255) NOT NULL,
+    model VARCHAR(255) NOT NULL,
+    production_year INTEGER NOT NULL,
+    price NUMERIC(10, 2) NOT NULL,
+    fuel_type VARCHAR(255) NOT NULL,
+    mileage INTEGER NOT NULL,
+    engine_capacity DOUBLE PRECISION NOT NULL,
+    transmission VARCHAR(255) NOT NULL,
+    description TEXT,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+
+CREATE TABLE car_images (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    car_id BIGINT NOT NULL,
+    image_url VARCHAR(255) NOT NULL,
+    public_id VARCHAR(255) NOT NULL,
+    CONSTRAINT fk_car_images_car FOREIGN KEY (car_id) REFERENCES cars (id)
+);
@@ -0,0 +1,24 @@
+-- Indexes behind the repository queries that the baseline left to sequential scans.
+-- IF NOT EXISTS because baselined databases may already carry some of them.
+
+-- Trigram indexes backing the substring filters in /api/cars/search.
+-- A plain B-tree cannot serve LIKE '%term%', a pg_trgm GIN index on lower(column) can.
+-- pg_trgm is a trusted extension, the database owner can create it without superuser rights.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_cars_brand_trgm ON cars USING gin (lower(brand) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_cars_model_trgm ON cars USING gin (lower(model) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_cars_fuel_type_trgm ON cars USING gin (lower(fuel_type) gin_trgm_ops);
+
+-- Keyset pagination (ORDER BY created_at, id) and the range filters; also declared on Car
+CREATE INDEX IF NOT EXISTS idx_cars_created_at_id ON cars (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_cars_year_price ON cars (production_year, price);
+CREATE INDEX IF NOT EXISTS idx_cars_price_mileage ON cars (price, mileage);
+CREATE INDEX IF NOT EXISTS idx_cars_mileage ON cars (mileage);
+CREATE INDEX IF NOT EXISTS idx_cars_engine_capacity ON cars (engine_capacity);
+
+-- Gallery fetches (findByCarId, findImageUrlsByCarIds ... ORDER BY id) and the cascade on car delete.
+-- PostgreSQL does not index foreign keys on its own.
+CREATE INDEX IF NOT EXISTS idx_car_images_car_id ON car_images (car_id, id);
+-- ImageDeletionWorker checks whether a public id is still referenced before deleting the remote image
+CREATE INDEX IF NOT EXISTS idx_car_images_public_id ON car_images (public_id);
@@ -0,0 +1,12 @@
+-- Ids used to come from identity columns. Keep each pooled sequence (increment 50) ahead of every
+-- existing id so sequence-generated ids never collide with rows inserted before the switch.
+-- Databases baselined from a schema that predates the sequences get them created here.
+CREATE SEQUENCE IF NOT EXISTS car_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS car_image_seq START WITH 1 INCREMENT BY 50;
+
+-- Ids are always assigned by the application now
+ALTER TABLE cars ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE car_images ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+SELECT setval('car_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM cars) + 50, (SELECT last_value FROM car_seq)));
+SELECT setval('car_image_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM car_images) + 50, (SELECT last_value FROM car_image_seq)));
@@ -0,0 +1,12 @@
+-- Full-text document for the free-text "q" filter in /api/cars/search: brand and model weighted above
+-- the description. Stored in a generated column, so ts_rank reads the tsvector instead of running
+-- to_tsvector again for every matching row, and PostgreSQL keeps it in sync with brand, model and
+-- description on every write. It is not mapped on Car, so loading a car never transfers it (see
+-- CarSearchFunctionContributor). The 'simple' configuration does not stem or drop stop words, listings
+-- are not necessarily written in English and prefix queries (typeahead) match the words as typed.
+ALTER TABLE cars ADD COLUMN IF NOT EXISTS search_document tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', brand || ' ' || model), 'A') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_cars_search_document ON cars USING gin (search_document);
@@ -0,0 +1,12 @@
+-- Card and thumbnail variants generated on upload, and the content hash used to reuse identical uploads.
+-- Existing images keep null variants and are served at full size.
+ALTER TABLE car_images ADD COLUMN IF NOT EXISTS card_url VARCHAR(255);
+ALTER TABLE car_images ADD COLUMN IF NOT EXISTS card_public_id VARCHAR(255);
+ALTER TABLE car_images ADD COLUMN IF NOT EXISTS thumbnail_url VARCHAR(255);
+ALTER TABLE car_images ADD COLUMN IF NOT EXISTS thumbnail_public_id VARCHAR(255);
+ALTER TABLE car_images ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
+CREATE INDEX IF NOT EXISTS idx_car_images_content_hash ON car_images (content_hash);
+-- ImageDeletionWorker checks every variant column before deleting a shared stored image
+CREATE INDEX IF NOT EXISTS idx_car_images_card_public_id ON car_images (card_public_id);
+CREATE INDEX IF NOT EXISTS idx_car_images_thumbnail_public_id ON car_images (thumbnail_public_id);
@@ -0,0 +1,15 @@
+-- Outbox of remote images still to be deleted, drained by ImageDeletionWorker. Ids come from a pooled
+-- sequence like the other tables (see V3); a baselined database may already have the table from
+-- Hibernate, so the sequence is moved past its ids.
+CREATE SEQUENCE IF NOT EXISTS image_deletion_seq START WITH 1 INCREMENT BY 50;
+CREATE TABLE IF NOT EXISTS image_deletion_outbox (
+    id BIGINT PRIMARY KEY,
+    public_id VARCHAR(255) NOT NULL,
+    attempts INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP(6) NOT NULL,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP(6)
+);
+CREATE INDEX IF NOT EXISTS idx_image_deletion_next_attempt ON image_deletion_outbox (next_attempt_at);
+
+SELECT setval('image_deletion_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM image_deletion_outbox) + 50, (SELECT last_value FROM image_deletion_seq)));
@@ -0,0 +1,75 @@
+package com.cd.car_dealership;
+
+import com.cd.car_dealership.model.Car;
+import com.cd.car_dealership.model.ImageDeletion;
+import com.cd.car_dealership.repository.CarRepository;
+import com.cd.car_dealership.repository.ImageDeletionRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Migrates an empty PostgreSQL database from V1 and starts the application on it with ddl-auto=validate,
+// so a migration that leaves out a table, column or sequence the entities map fails here
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+		"spring.jpa.hibernate.ddl-auto=validate",
+		"spring.flyway.enabled=true",
+		"spring.flyway.baseline-on-migrate=true",
+		"spring.flyway.baseline-version=1",
+		"jwt.secret=c2NoZW1hLW1pZ3JhdGlvbi10ZXN0LXNpZ25pbmcta2V5LTAxMjM0NTY3ODk=",
+		"cloudinary.cloud-name=test",
+		"cloudinary.api-key=test",
+		"cloudinary.api-secret=test",
+		"image.store=stub"
+})
+@Testcontainers
+class SchemaMigrationPostgresTests {
+
+	@Container
+	@ServiceConnection
+	static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@Autowired
+	private Flyway flyway;
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Autowired
+	private ImageDeletionRepository imageDeletionRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void migratesAnEmptyDatabaseToTheMappedSchema() {
+		// Every migration ran, V1 included: an empty database is never baselined
+		assertThat(flyway.info().pending()).isEmpty();
+		assertThat(flyway.info().applied()).hasSameSizeAs(flyway.info().all());
+
+		// Ids come from the sequences created by the migrations
+		Car car = carRepository.save(TestCars.car("BMW").build());
+		ImageDeletion deletion = imageDeletionRepository.save(ImageDeletion.builder().publicId("image-1").build());
+
+		assertThat(car.getId()).isNotNull();
+		assertThat(deletion.getId()).isNotNull();
+	}
+
+	@Test
+	void servesEverySubstringFilterWithATrigramIndex() {
+		List<String> trigramIndexes = jdbcTemplate.queryForList(
+				"SELECT indexname FROM pg_indexes WHERE tablename = 'cars' AND indexdef LIKE '%gin_trgm_ops%' " +
+				"ORDER BY indexname", String.class);
+
+		assertThat(trigramIndexes).containsExactly("idx_cars_brand_trgm", "idx_cars_fuel_type_trgm", "idx_cars_model_trgm");
+	}
+}
@@ -0,0 +1,80 @@
+package com.cd.car_dealership.repository;
+
+import com.cd.car_dealership.TestCars;
+import com.cd.car_dealership.dto.CarSearchCriteria;
+import com.cd.car_dealership.model.Car;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The "q" filter on the migrated schema: matches and ranks on the stored search_document column
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+class CarFullTextSearchPostgresTests {
+
+	@Container
+	@ServiceConnection
+	static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void ranksBrandAndModelMatchesAboveDescriptionMatches() {
+		save("Audi", "A4", "Traded in against a new volvo");
+		save("Volvo", "V60", "Family estate");
+		save("Skoda", "Octavia", "Volvo-like seats");
+
+		// Brand and model carry weight A, the description weight B
+		assertThat(search("volvo")).containsExactly("Volvo V60", "Skoda Octavia", "Audi A4");
+	}
+
+	@Test
+	void matchesEveryWordAsAPrefix() {
+		save("Mercedes-Benz", "C220", "Automatic gearbox");
+		save("Mercedes-Benz", "A180", "Manual gearbox");
+
+		assertThat(search("merc c22")).containsExactly("Mercedes-Benz C220");
+		assertThat(search("merc autom")).containsExactly("Mercedes-Benz C220");
+		// tsquery syntax in the input is dropped instead of failing the query, the words are still all required
+		assertThat(search("merc & !a180 | (")).containsExactly("Mercedes-Benz A180");
+	}
+
+	@Test
+	void keepsTheStoredDocumentInSyncWithTheRow() {
+		Car car = save("Ford", "Focus", null);
+
+		car.setDescription("Recently serviced");
+		carRepository.saveAndFlush(car);
+
+		assertThat(search("serviced")).containsExactly("Ford Focus");
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM pg_indexes WHERE indexname = 'idx_cars_search_document' " +
+				"AND indexdef LIKE '%search_document)'", Long.class)).isEqualTo(1);
+	}
+
+	private List<String> search(String q) {
+		return carRepository.search(CarSearchCriteria.builder().q(q).build()).stream()
+				.map(car -> car.getBrand() + " " + car.getModel())
+				.collect(Collectors.toList());
+	}
+
+	private Car save(String brand, String model, String description) {
+		return carRepository.saveAndFlush(TestCars.car(brand).model(model).description(description).build());
+	}
+}
@@ -3,7 +3,17 @@ package com.cd.car_dealership;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// The migrations are PostgreSQL-only (SchemaMigrationPostgresTests runs them), so the embedded H2
+// database gets its schema from Hibernate like in the other tests
+@SpringBootTest(properties = {
+		"spring.flyway.enabled=false",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"jwt.secret=Y29udGV4dC1sb2Fkcy10ZXN0LXNpZ25pbmcta2V5LTAxMjM0NTY3ODlhYmNkZWY=",
+		"cloudinary.cloud-name=test",
+		"cloudinary.api-key=test",
+		"cloudinary.api-secret=test",
+		"image.store=stub"
+})
 class CarDealershipApplicationTests {
 
 	@Test
@@ -0,0 +1,39 @@
+package com.cd.car_dealership;
+
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.model.Car;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+// Valid listings for tests, which override only the fields they are about
+public final class TestCars {
+
+	private TestCars() {
+	}
+
+	public static Car.CarBuilder car(String brand) {
+		return Car.builder()
+				.brand(brand)
+				.model("320d")
+				.productionYear(2019)
+				.price(new BigDecimal("25000.00"))
+				.fuelType("Diesel")
+				.mileage(60000)
+				.engineCapacity(2.0)
+				.transmission("Manual")
+				.imageGallery(new ArrayList<>());
+	}
+
+	public static CarDTO.CarDTOBuilder carDTO(String brand) {
+		return CarDTO.builder()
+				.brand(brand)
+				.model("320d")
+				.productionYear(2021)
+				.price(new BigDecimal("30000.00"))
+				.fuelType("Diesel")
+				.mileage(10000)
+				.engineCapacity(2.0)
+				.transmission("Manual");
+	}
+}
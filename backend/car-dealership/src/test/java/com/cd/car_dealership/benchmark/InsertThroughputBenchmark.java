@@ -0,0 +1,117 @@
+package com.cd.car_dealership.benchmark;
+
+import com.cd.car_dealership.model.Car;
+import com.cd.car_dealership.model.ImageInfo;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+/**
+ * Measures how many rows per second Hibernate persists for cars with a five image gallery, once with
+ * JDBC batching disabled (one round trip per row, as with the former IDENTITY ids) and once with the
+ * configured hibernate.jdbc.batch_size. Point it at a scratch PostgreSQL instance:
+ *
+ * ./mvnw test -Dtest=InsertThroughputBenchmark -Dinsert.benchmark=true \
+ *     -Dspring.datasource.url=jdbc:postgresql://localhost:5432/car_dealership_bench?reWriteBatchedInserts=true
+ *
+ * Inserted rows are tagged in the description column and removed afterwards.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "insert.benchmark", matches = "true")
+class InsertThroughputBenchmark {
+
+	private static final String MARKER = "insert-benchmark";
+	private static final int IMAGES_PER_CAR = 5;
+	private static final int CHUNK_SIZE = 1000;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+	private int batchSize;
+
+	@Test
+	void reportInsertThroughput() {
+		int cars = Integer.getInteger("insert.benchmark.cars", 20_000);
+
+		try {
+			// Warm up the persistence path and the sequence pools before measuring
+			insert(cars / 10, batchSize);
+			cleanUp();
+
+			report("unbatched", cars, 1);
+			report("batch size " + batchSize, cars, batchSize);
+		} finally {
+			cleanUp();
+		}
+	}
+
+	private void report(String name, int cars, int jdbcBatchSize) {
+		long start = System.nanoTime();
+		insert(cars, jdbcBatchSize);
+		double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+		cleanUp();
+
+		long rows = (long) cars * (1 + IMAGES_PER_CAR);
+		System.out.printf("  %-16s %,10d rows in %6.2f s   %,12.0f rows/s%n", name, rows, seconds, rows / seconds);
+	}
+
+	private void insert(int cars, int jdbcBatchSize) {
+		for (int from = 0; from < cars; from += CHUNK_SIZE) {
+			int to = Math.min(cars, from + CHUNK_SIZE);
+			int first = from;
+			transactionTemplate.executeWithoutResult(status -> {
+				entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+				for (int i = first; i < to; i++) {
+					entityManager.persist(car(i));
+				}
+				entityManager.flush();
+				entityManager.clear();
+			});
+		}
+	}
+
+	private Car car(int i) {
+		Car car = Car.builder()
+				.brand("Brand " + (i % 10))
+				.model("Model " + (i % 500))
+				.productionYear(1995 + i % 30)
+				.price(BigDecimal.valueOf(5000 + (i * 7919L) % 200000))
+				.fuelType(i % 2 == 0 ? "Diesel" : "Gasoline")
+				.mileage((int) ((i * 104729L) % 300000))
+				.engineCapacity(1.0 + (i % 40) / 10.0)
+				.transmission(i % 2 == 0 ? "Manual" : "Automatic")
+				.description(MARKER)
+				.imageGallery(new ArrayList<>())
+				.build();
+		for (int j = 0; j < IMAGES_PER_CAR; j++) {
+			car.getImageGallery().add(ImageInfo.builder()
+					.car(car)
+					.imageUrl("https://example.com/" + i + "/" + j + ".jpg")
+					.publicId("insert-benchmark/" + i + "-" + j)
+					.build());
+		}
+		return car;
+	}
+
+	private void cleanUp() {
+		jdbcTemplate.update("DELETE FROM car_images WHERE car_id IN (SELECT id FROM cars WHERE description = ?)", MARKER);
+		jdbcTemplate.update("DELETE FROM cars WHERE description = ?", MARKER);
+	}
+
+}
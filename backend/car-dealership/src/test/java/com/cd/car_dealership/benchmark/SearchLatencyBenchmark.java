@@ -0,0 +1,104 @@
+package com.cd.car_dealership.benchmark;
+
+import com.cd.car_dealership.dto.CarSearchCriteria;
+import com.cd.car_dealership.repository.CarRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures /api/cars/search query latency while the inventory grows (10k, 100k, 1M rows by default).
+ * Seeds rows straight into the configured database, so point it at a scratch PostgreSQL instance:
+ *
+ * ./mvnw test -Dtest=SearchLatencyBenchmark -Dsearch.benchmark=true \
+ *     -Dspring.datasource.url=jdbc:postgresql://localhost:5432/car_dealership_bench
+ *
+ * Seeded rows are tagged in the description column and removed afterwards.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "search.benchmark", matches = "true")
+class SearchLatencyBenchmark {
+
+	private static final String MARKER = "search-benchmark";
+	private static final int WARMUP_RUNS = 5;
+	private static final int MEASURED_RUNS = 50;
+
+	private static final String SEED_SQL =
+			"INSERT INTO cars (id, brand, model, production_year, price, fuel_type, mileage, engine_capacity, " +
+			"transmission, description, created_at, updated_at) " +
+			"SELECT nextval('car_seq'), (ARRAY['BMW','Audi','Mercedes','Volkswagen','Toyota','Ford','Skoda','Hyundai','Kia','Volvo'])[1 + g % 10], " +
+			"'Model ' || (g % 500), 1995 + g % 30, 5000 + (g * 7919) % 200000, " +
+			"(ARRAY['Diesel','Gasoline','Hybrid','Electric'])[1 + g % 4], (g * 104729) % 300000, " +
+			"1.0 + (g % 40) / 10.0, CASE WHEN g % 2 = 0 THEN 'Manual' ELSE 'Automatic' END, " +
+			"?, now() - g * interval '1 second', now() " +
+			"FROM generate_series(?, ?) AS g";
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void reportSearchLatency() {
+		int[] sizes = Arrays.stream(System.getProperty("search.benchmark.sizes", "10000,100000,1000000").split(","))
+				.map(String::trim)
+				.mapToInt(Integer::parseInt)
+				.toArray();
+
+		Map<String, CarSearchCriteria> scenarios = new LinkedHashMap<>();
+		scenarios.put("no filters", CarSearchCriteria.builder().limit(50).build());
+		scenarios.put("brand substring", CarSearchCriteria.builder().brand("merc").limit(50).build());
+		scenarios.put("brand + model", CarSearchCriteria.builder().brand("bmw").model("model 42").limit(50).build());
+		scenarios.put("year + price range", CarSearchCriteria.builder()
+				.minYear(2015).maxYear(2018)
+				.minPrice(new BigDecimal("20000")).maxPrice(new BigDecimal("40000"))
+				.limit(50).build());
+		scenarios.put("low mileage", CarSearchCriteria.builder().maxMileage(1000).limit(50).build());
+		scenarios.put("free text", CarSearchCriteria.builder().q("volvo model 42").limit(50).build());
+		scenarios.put("typeahead prefix", CarSearchCriteria.builder().q("merc mod").limit(50).build());
+		scenarios.put("text + price range", CarSearchCriteria.builder().q("toyota")
+				.minPrice(new BigDecimal("20000")).maxPrice(new BigDecimal("40000"))
+				.limit(50).build());
+
+		try {
+			int seeded = 0;
+			for (int size : sizes) {
+				jdbcTemplate.update(SEED_SQL, MARKER, seeded + 1, size);
+				seeded = size;
+				jdbcTemplate.execute("ANALYZE cars");
+
+				System.out.printf("%n%,d cars%n", size);
+				scenarios.forEach((name, criteria) -> report(name, criteria));
+			}
+		} finally {
+			jdbcTemplate.update("DELETE FROM cars WHERE description = ?", MARKER);
+		}
+	}
+
+	private void report(String name, CarSearchCriteria criteria) {
+		for (int i = 0; i < WARMUP_RUNS; i++) {
+			carRepository.search(criteria);
+		}
+
+		long[] nanos = new long[MEASURED_RUNS];
+		for (int i = 0; i < MEASURED_RUNS; i++) {
+			long start = System.nanoTime();
+			carRepository.search(criteria);
+			nanos[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(nanos);
+
+		System.out.printf("  %-20s p50 %8.2f ms   p99 %8.2f ms%n", name,
+				nanos[MEASURED_RUNS / 2] / 1_000_000.0,
+				nanos[(int) Math.ceil(MEASURED_RUNS * 0.99) - 1] / 1_000_000.0);
+	}
+
+}
@@ -0,0 +1,139 @@
+package com.cd.car_dealership.controller;
+
+import com.cd.car_dealership.TestCars;
+import com.cd.car_dealership.config.CacheConfig;
+import com.cd.car_dealership.model.Car;
+import com.cd.car_dealership.repository.CarRepository;
+import com.cd.car_dealership.service.CarService;
+import com.cd.car_dealership.service.CarTransferService;
+import com.cd.car_dealership.service.ImageDerivativeService;
+import com.cd.car_dealership.service.ImageUploadPool;
+import com.cd.car_dealership.service.ImageValidationService;
+import com.cd.car_dealership.service.InventoryIndex;
+import com.cd.car_dealership.service.InventoryVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Runs without a test transaction, so writes commit and move the validator like in production
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CarService.class, InventoryVersion.class, CacheConfig.class})
+class CarControllerTests {
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Autowired
+	private InventoryVersion inventoryVersion;
+
+	@MockitoBean
+	private ImageDerivativeService imageDerivativeService;
+
+	@MockitoBean
+	private ImageValidationService imageValidationService;
+
+	@MockitoBean
+	private ImageUploadPool imageUploadPool;
+
+	@MockitoBean
+	private InventoryIndex inventoryIndex;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.standaloneSetup(
+				new CarController(carService, mock(CarTransferService.class), inventoryVersion)).build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		carRepository.deleteAll();
+	}
+
+	@Test
+	void revalidatesCarDetailsWithNotModified() throws Exception {
+		Long id = saveCar("BMW").getId();
+
+		String etag = mockMvc.perform(get("/api/cars/{id}", id))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.brand").value("BMW"))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=0, must-revalidate, public"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).isEqualTo(inventoryVersion.current().getEtag());
+
+		mockMvc.perform(get("/api/cars/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+	}
+
+	@Test
+	void aWriteInvalidatesTheValidator() throws Exception {
+		Long id = saveCar("BMW").getId();
+		String etag = mockMvc.perform(get("/api/cars/{id}", id))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(put("/api/cars/{id}", id)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"brand\":\"Audi\",\"model\":\"A4\",\"productionYear\":2020,\"price\":30000," +
+								"\"fuelType\":\"Diesel\",\"mileage\":40000,\"engineCapacity\":2.0,\"transmission\":\"Manual\"}"))
+				.andExpect(status().isOk());
+
+		String updatedEtag = mockMvc.perform(get("/api/cars/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.brand").value("Audi"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(updatedEtag).isNotEqualTo(etag);
+
+		// Every inventory read shares the validator, so the list is revalidated too
+		mockMvc.perform(get("/api/cars").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/cars").header(HttpHeaders.IF_NONE_MATCH, updatedEtag))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void unknownOrDeletedCarIsNotFoundEvenWithTheCurrentETag() throws Exception {
+		Long id = saveCar("BMW").getId();
+		mockMvc.perform(get("/api/cars/{id}", id)).andExpect(status().isOk());
+		String etag = inventoryVersion.current().getEtag();
+
+		mockMvc.perform(get("/api/cars/{id}", id + 1000).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotFound());
+
+		mockMvc.perform(delete("/api/cars/{id}", id))
+				.andExpect(status().isNoContent());
+		String afterDelete = inventoryVersion.current().getEtag();
+		assertThat(afterDelete).isNotEqualTo(etag);
+		mockMvc.perform(get("/api/cars/{id}", id).header(HttpHeaders.IF_NONE_MATCH, afterDelete))
+				.andExpect(status().isNotFound());
+	}
+
+	private Car saveCar(String brand) {
+		return carRepository.save(TestCars.car(brand).build());
+	}
+}
@@ -0,0 +1,133 @@
+package com.cd.car_dealership.controller;
+
+import com.cd.car_dealership.service.LocalImageStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ImageControllerTests {
+
+	private static final String CONTENT = "0123456789";
+
+	@TempDir
+	Path root;
+
+	private final LocalImageStore imageStore = new LocalImageStore();
+	private MockMvc mockMvc;
+	private String url;
+	private String etag;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		ReflectionTestUtils.setField(imageStore, "rootDirectory", root.toString());
+		ReflectionTestUtils.setField(imageStore, "baseUrl", "/api/images");
+		imageStore.init();
+		Path upload = Files.writeString(Files.createTempFile("image-", ".jpg"), CONTENT, StandardCharsets.UTF_8);
+		try {
+			String publicId = imageStore.upload(upload, "car.jpg").getPublicId();
+			url = "/api/images/" + publicId;
+			etag = "\"" + publicId.substring(3, publicId.lastIndexOf('.')) + "\"";
+		} finally {
+			Files.delete(upload);
+		}
+		mockMvc = MockMvcBuilders.standaloneSetup(new ImageController(imageStore)).build();
+	}
+
+	@Test
+	void servesTheFileWithItsContentHashAsETag() throws Exception {
+		mockMvc.perform(get(url))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+				.andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length()))
+				.andExpect(content().contentType("image/jpeg"))
+				.andExpect(content().string(CONTENT));
+	}
+
+	@Test
+	void answersIfNoneMatchWithNotModified() throws Exception {
+		mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+
+		mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void servesASingleByteRange() throws Exception {
+		mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=2-5"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+				.andExpect(content().string("2345"));
+
+		mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=-3"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+				.andExpect(content().string("789"));
+	}
+
+	@Test
+	void ignoresAnInvalidRangeHeader() throws Exception {
+		for (String range : new String[]{"bytes=5-2", "bytes=abc", "pages=1-2", "bytes="}) {
+			mockMvc.perform(get(url).header(HttpHeaders.RANGE, range))
+					.andExpect(status().isOk())
+					.andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+					.andExpect(content().string(CONTENT));
+		}
+	}
+
+	@Test
+	void rejectsAWellFormedRangeBeyondTheEndOfTheFile() throws Exception {
+		mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=10-20"))
+				.andExpect(status().isRequestedRangeNotSatisfiable())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+	}
+
+	@Test
+	void sendsTheFullBodyWhenIfRangeDoesNotMatch() throws Exception {
+		mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=2-5").header(HttpHeaders.IF_RANGE, etag))
+				.andExpect(status().isPartialContent());
+
+		// A stale validator, or a date (never sent by this endpoint), means the client's copy is outdated
+		mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=2-5").header(HttpHeaders.IF_RANGE, "\"stale\""))
+				.andExpect(status().isOk())
+				.andExpect(content().string(CONTENT));
+		mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=2-5")
+						.header(HttpHeaders.IF_RANGE, "Wed, 21 Oct 2015 07:28:00 GMT"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void onlyServesContentHashNames() throws Exception {
+		Files.writeString(root.resolve("secret.txt"), "secret");
+		Files.createDirectories(root.resolve("ab"));
+		Files.writeString(root.resolve("ab").resolve("notes.txt"), "secret");
+
+		mockMvc.perform(get("/api/images/ab/notes.txt")).andExpect(status().isNotFound());
+		mockMvc.perform(get("/api/images/ab/..%2Fsecret.txt")).andExpect(status().isNotFound());
+		mockMvc.perform(get("/api/images/../secret.txt")).andExpect(status().isNotFound());
+		mockMvc.perform(get("/api/images/00/" + "0".repeat(64) + ".jpg")).andExpect(status().isNotFound());
+
+		assertThat(imageStore.resolve("../secret.txt")).isEmpty();
+		assertThat(imageStore.resolve("ab/../../secret.txt")).isEmpty();
+		assertThat(imageStore.resolve("/etc/passwd")).isEmpty();
+		assertThat(imageStore.resolve(".incoming/" + "0".repeat(64))).isEmpty();
+	}
+}
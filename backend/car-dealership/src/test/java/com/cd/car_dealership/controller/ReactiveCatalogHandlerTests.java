@@ -0,0 +1,277 @@
+package com.cd.car_dealership.controller;
+
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.repository.ReactiveCarRepository;
+import com.cd.car_dealership.service.InventoryIndex;
+import com.cd.car_dealership.service.InventoryVersion;
+import com.cd.car_dealership.service.ReactiveCatalogService;
+import io.r2dbc.h2.CloseableConnectionFactory;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveCatalogHandlerTests {
+
+	private static final LocalDateTime CREATED = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+	private final CloseableConnectionFactory connectionFactory = H2ConnectionFactory.inMemory("catalog-" + UUID.randomUUID());
+	private final DatabaseClient databaseClient = DatabaseClient.create(connectionFactory);
+	private final InventoryIndex inventoryIndex = mock(InventoryIndex.class);
+	private final InventoryVersion inventoryVersion = new InventoryVersion();
+	private WebTestClient client;
+
+	@BeforeEach
+	void setUp() {
+		execute("CREATE TABLE cars (id BIGINT PRIMARY KEY, brand VARCHAR(255) NOT NULL, model VARCHAR(255) NOT NULL, " +
+				"production_year INTEGER NOT NULL, price NUMERIC(10, 2) NOT NULL, fuel_type VARCHAR(255) NOT NULL, " +
+				"mileage INTEGER NOT NULL, engine_capacity DOUBLE PRECISION NOT NULL, transmission VARCHAR(255) NOT NULL, " +
+				"description VARCHAR(2000), created_at TIMESTAMP(6), updated_at TIMESTAMP(6))");
+		execute("CREATE TABLE car_images (id BIGINT PRIMARY KEY, car_id BIGINT NOT NULL, image_url VARCHAR(255) NOT NULL, " +
+				"public_id VARCHAR(255) NOT NULL, card_url VARCHAR(255), card_public_id VARCHAR(255), " +
+				"thumbnail_url VARCHAR(255), thumbnail_public_id VARCHAR(255), content_hash VARCHAR(64))");
+		insertCar(1, "BMW", "320d", 30000, 2);
+		insertCar(2, "Audi", "A4", 28000, 1);
+		insertCar(3, "Skoda", "Octavia", 18000, 0);
+		execute("INSERT INTO car_images (id, car_id, image_url, public_id, card_url, thumbnail_url) VALUES " +
+				"(10, 1, 'https://img/1-full.jpg', 'p10', 'https://img/1-card.jpg', 'https://img/1-thumb.jpg'), " +
+				"(11, 1, 'https://img/2-full.jpg', 'p11', NULL, NULL)");
+		when(inventoryIndex.mayMatch(any())).thenReturn(true);
+
+		ReactiveCatalogService service = new ReactiveCatalogService(new ReactiveCarRepository(databaseClient), inventoryIndex);
+		client = WebTestClient.bindToRouterFunction(new ReactiveCatalogHandler(service, inventoryVersion).routes()).build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		execute("DROP ALL OBJECTS");
+		connectionFactory.close();
+	}
+
+	@Test
+	void streamsNewestFirstAsNdjsonWithGalleries() {
+		List<CarDTO> cars = client.get().uri("/api/cars")
+				.accept(MediaType.APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+				.expectHeader().exists(HttpHeaders.ETAG)
+				.expectBodyList(CarDTO.class)
+				.returnResult().getResponseBody();
+
+		assertThat(cars).extracting(CarDTO::getId).containsExactly(3L, 2L, 1L);
+		CarDTO bmw = cars.get(2);
+		assertThat(bmw.getImageGallery()).containsExactly("https://img/1-full.jpg", "https://img/2-full.jpg");
+		// Images without generated variants fall back to the full-size URL
+		assertThat(bmw.getCardGallery()).containsExactly("https://img/1-card.jpg", "https://img/2-full.jpg");
+		assertThat(bmw.getThumbnailGallery()).containsExactly("https://img/1-thumb.jpg", "https://img/2-full.jpg");
+		assertThat(cars.get(0).getImageGallery()).isEmpty();
+	}
+
+	@Test
+	void limitsTheStream() {
+		client.get().uri("/api/cars?limit=2")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(CarDTO.class).hasSize(2);
+
+		// Out-of-range limits are clamped to 1..100 instead of failing the query
+		client.get().uri("/api/cars?limit=-1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(CarDTO.class).hasSize(1);
+		client.get().uri("/api/cars/search?limit=0")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(CarDTO.class).hasSize(1);
+		client.get().uri("/api/cars/search?limit=100000")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(CarDTO.class).hasSize(3);
+	}
+
+	@Test
+	void streamsPageAfterPageNewestFirst() {
+		// Two pages and a half, every car created at the same time so the id breaks the ties
+		execute("INSERT INTO cars (id, brand, model, production_year, price, fuel_type, mileage, engine_capacity, " +
+				"transmission, created_at, updated_at) SELECT X, 'Volvo', 'V60', 2019, 21000, 'Diesel', 70000, 2.0, " +
+				"'Automatic', TIMESTAMP '2024-06-01 09:00:00', TIMESTAMP '2024-06-01 09:00:00' FROM SYSTEM_RANGE(100, 349)");
+
+		List<CarDTO> cars = client.get().uri("/api/cars")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(CarDTO.class)
+				.returnResult().getResponseBody();
+
+		assertThat(cars).hasSize(253);
+		assertThat(cars.get(0).getId()).isEqualTo(349L);
+		assertThat(cars.get(249).getId()).isEqualTo(100L);
+		assertThat(cars).extracting(CarDTO::getId).doesNotHaveDuplicates().endsWith(3L, 2L, 1L);
+		assertThat(cars.get(251).getImageGallery()).isEmpty();
+		assertThat(cars.get(252).getImageGallery()).hasSize(2);
+	}
+
+	@Test
+	void moreConcurrentStreamsThanPooledConnectionsAllComplete() {
+		execute("INSERT INTO cars (id, brand, model, production_year, price, fuel_type, mileage, engine_capacity, " +
+				"transmission, created_at, updated_at) SELECT X, 'Volvo', 'V60', 2019, 21000, 'Diesel', 70000, 2.0, " +
+				"'Automatic', TIMESTAMP '2024-06-01 09:00:00', TIMESTAMP '2024-06-01 09:00:00' FROM SYSTEM_RANGE(100, 349)");
+		ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+				.initialSize(1)
+				.maxSize(2)
+				.maxAcquireTime(Duration.ofSeconds(2))
+				.build());
+		ReactiveCarRepository repository = new ReactiveCarRepository(DatabaseClient.create(pool));
+
+		try {
+			// Slow consumers: a stream that kept a connection while waiting for its client would starve the others
+			List<Long> counts = Flux.range(0, 6)
+					.flatMap(stream -> repository.findAll(null).delayElements(Duration.ofMillis(1)).count())
+					.collectList()
+					.block(Duration.ofSeconds(30));
+
+			assertThat(counts).hasSize(6).containsOnly(253L);
+		} finally {
+			pool.dispose();
+		}
+	}
+
+	@Test
+	void streamsServerSentEventsWhenRequested() {
+		List<ServerSentEvent<CarDTO>> events = client.get().uri("/api/cars/search?maxPrice=29000")
+				.accept(MediaType.TEXT_EVENT_STREAM)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+				.returnResult(new ParameterizedTypeReference<ServerSentEvent<CarDTO>>() {
+				})
+				.getResponseBody().collectList().block();
+
+		assertThat(events).extracting(ServerSentEvent::id).containsExactly("3", "2");
+		assertThat(events.get(0).data().getBrand()).isEqualTo("Skoda");
+	}
+
+	@Test
+	void searchMatchesLikeTheMvcEndpoint() {
+		client.get().uri("/api/cars/search?brand= bM &minYear=2015")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(CarDTO.class)
+				.value(cars -> assertThat(cars).extracting(CarDTO::getBrand).containsExactly("BMW"));
+
+		// LIKE wildcards in user input are matched literally
+		client.get().uri(uri -> uri.path("/api/cars/search").queryParam("model", "%").build())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(CarDTO.class).hasSize(0);
+	}
+
+	@Test
+	void freeTextMatchesEveryWordOnDatabasesWithoutFullTextSearch() {
+		client.get().uri("/api/cars/search?q=bmw 320")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(CarDTO.class)
+				.value(cars -> assertThat(cars).extracting(CarDTO::getBrand).containsExactly("BMW"));
+
+		client.get().uri(uri -> uri.path("/api/cars/search").queryParam("q", "audi & !a4").build())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(CarDTO.class)
+				.value(cars -> assertThat(cars).extracting(CarDTO::getBrand).containsExactly("Audi"));
+	}
+
+	@Test
+	void skipsTheDatabaseWhenTheIndexRulesOutEveryListing() {
+		when(inventoryIndex.mayMatch(any())).thenReturn(false);
+		execute("DROP TABLE cars");
+
+		client.get().uri("/api/cars/search?brand=Ferrari")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(CarDTO.class).hasSize(0);
+	}
+
+	@Test
+	void returnsCarDetailsAndRevalidates() {
+		String etag = client.get().uri("/api/cars/1")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(CarDTO.class)
+				.value(car -> assertThat(car.getImageGallery()).hasSize(2))
+				.returnResult().getResponseHeaders().getETag();
+
+		client.get().uri("/api/cars/1")
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isNotModified();
+
+		client.get().uri("/api/cars/999")
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	@Test
+	void unknownOrDeletedCarIsNotFoundEvenWithTheCurrentETag() {
+		String etag = client.get().uri("/api/cars/1")
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(CarDTO.class).getResponseHeaders().getETag();
+
+		client.get().uri("/api/cars/999")
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isNotFound();
+
+		// Deleted by another writer, so the validator has not moved
+		execute("DELETE FROM car_images WHERE car_id = 1");
+		execute("DELETE FROM cars WHERE id = 1");
+		client.get().uri("/api/cars/1")
+				.ifNoneMatch(etag)
+				.exchange()
+				.expectStatus().isNotFound();
+	}
+
+	@Test
+	void rejectsMalformedParameters() {
+		client.get().uri("/api/cars/search?minPrice=cheap")
+				.exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	private void insertCar(long id, String brand, String model, int price, int ageDays) {
+		databaseClient.sql("INSERT INTO cars (id, brand, model, production_year, price, fuel_type, mileage, " +
+						"engine_capacity, transmission, description, created_at, updated_at) " +
+						"VALUES (:id, :brand, :model, 2018, :price, 'Diesel', 50000, 2.0, 'Manual', NULL, :createdAt, :createdAt)")
+				.bind("id", id)
+				.bind("brand", brand)
+				.bind("model", model)
+				.bind("price", price)
+				.bind("createdAt", CREATED.minusDays(ageDays))
+				.then()
+				.block();
+	}
+
+	private void execute(String sql) {
+		databaseClient.sql(sql).then().block();
+	}
+}
@@ -0,0 +1,413 @@
+package com.cd.car_dealership.loadtest;
+
+import com.cd.car_dealership.model.Car;
+import com.cd.car_dealership.model.ImageInfo;
+import com.cd.car_dealership.repository.CarRepository;
+import com.cd.car_dealership.service.InventoryIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives mixed read/write traffic against a running instance of the app and reports per-endpoint
+ * throughput and latency percentiles (HdrHistogram). The image store is stubbed with a simulated
+ * round-trip latency; the database is an in-memory H2 unless loadtest.datasource.url points elsewhere.
+ *
+ * ./mvnw test -Dtest=CarApiLoadTest -Dloadtest=true -Dloadtest.cars=100000 -Dloadtest.clients=64
+ *
+ * Against PostgreSQL add -Dloadtest.datasource.url=jdbc:postgresql://localhost:5432/car_dealership_load
+ * (plus .username / .password). The report is written to target/loadtest-report-platform.json.
+ *
+ * On a Java 21 build (-Pjava21) add -Dloadtest.virtual-threads=true to serve requests on virtual threads;
+ * that run writes target/loadtest-report-virtual.json and, when the platform-thread report is present,
+ * prints throughput and p99 of both modes side by side. Both modes share loadtest.pool-size connections.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class CarApiLoadTest {
+
+	private static final String MARKER = "load-test";
+	private static final String[] BRANDS = {"BMW", "Audi", "Mercedes", "Volkswagen", "Toyota", "Ford", "Skoda", "Hyundai", "Kia", "Volvo"};
+	private static final String[] FUEL_TYPES = {"Diesel", "Gasoline", "Hybrid", "Electric"};
+	private static final int SEED_BATCH_SIZE = 1000;
+	// Latencies are recorded in microseconds, up to one minute
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+	private static final boolean VIRTUAL_THREADS = Boolean.getBoolean("loadtest.virtual-threads");
+
+	private final int carCount = Integer.getInteger("loadtest.cars", 10_000);
+	private final int clients = Integer.getInteger("loadtest.clients", 32);
+	private final int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+	private final int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 30);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Autowired
+	private InventoryIndex inventoryIndex;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final HttpClient httpClient = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+
+	@DynamicPropertySource
+	static void loadTestProperties(DynamicPropertyRegistry registry) {
+		String url = System.getProperty("loadtest.datasource.url");
+		if (url != null) {
+			registry.add("spring.datasource.url", () -> url);
+			registry.add("spring.datasource.username", () -> System.getProperty("loadtest.datasource.username", "postgres"));
+			registry.add("spring.datasource.password", () -> System.getProperty("loadtest.datasource.password", ""));
+		} else {
+			registry.add("spring.datasource.url", () -> "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+			registry.add("spring.datasource.username", () -> "sa");
+			registry.add("spring.datasource.password", () -> "");
+			// The migrations are PostgreSQL-only, let Hibernate create the H2 schema
+			registry.add("spring.flyway.enabled", () -> "false");
+			registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+		}
+		registry.add("image.store", () -> "stub");
+		registry.add("image.store.stub.latency-ms", () -> System.getProperty("loadtest.image-latency-ms", "50"));
+		registry.add("jwt.secret", () -> Base64.getEncoder().encodeToString(new byte[64]));
+		registry.add("jwt.expiration-ms", () -> "3600000");
+		registry.add("server.tomcat.threads.max", () -> Math.max(200, Integer.getInteger("loadtest.clients", 32)));
+		registry.add("spring.threads.virtual.enabled", () -> VIRTUAL_THREADS);
+		registry.add("spring.datasource.hikari.maximum-pool-size", () -> Integer.getInteger("loadtest.pool-size", 20));
+	}
+
+	@Test
+	void reportLatencyUnderMixedLoad() throws Exception {
+		if (VIRTUAL_THREADS) {
+			// Spring Boot silently keeps platform threads below Java 21, which would mislabel the report
+			assertThat(Runtime.version().feature()).as("virtual threads need a Java 21 runtime").isGreaterThanOrEqualTo(21);
+		}
+		List<Long> carIds = seedInventory();
+		try {
+			String token = login();
+			byte[] image = sampleJpeg();
+
+			// Warm up the JIT and connection pools, then measure with fresh histograms
+			runClients(carIds, token, image, warmupSeconds, new ConcurrentHashMap<>());
+			Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+			long started = System.nanoTime();
+			runClients(carIds, token, image, durationSeconds, stats);
+			double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+			Path report = writeReport(stats, elapsedSeconds);
+			System.out.println("Load test report written to " + report.toAbsolutePath());
+			printComparison();
+
+			assertThat(stats.keySet()).contains("GET /api/cars", "GET /api/cars/search", "POST /api/cars/{id}/gallery");
+			stats.forEach((endpoint, endpointStats) ->
+					assertThat(endpointStats.errors.sum()).as("errors for " + endpoint).isZero());
+		} finally {
+			removeSeededRows();
+		}
+	}
+
+	private List<Long> seedInventory() {
+		SplittableRandom random = new SplittableRandom(42L);
+		List<Long> carIds = new ArrayList<>(carCount);
+		for (int from = 0; from < carCount; from += SEED_BATCH_SIZE) {
+			List<Car> batch = new ArrayList<>();
+			for (int i = from; i < Math.min(from + SEED_BATCH_SIZE, carCount); i++) {
+				batch.add(randomCar(random, 2));
+			}
+			carRepository.saveAll(batch).forEach(car -> carIds.add(car.getId()));
+		}
+		// Rows were written behind the index's back; rebuild so facets and search pre-checks see them
+		inventoryIndex.rebuild();
+		return carIds;
+	}
+
+	private Car randomCar(SplittableRandom random, int images) {
+		Car car = Car.builder()
+				.brand(BRANDS[random.nextInt(BRANDS.length)])
+				.model("Model " + random.nextInt(500))
+				.productionYear(1995 + random.nextInt(30))
+				.price(BigDecimal.valueOf(5000 + random.nextInt(200000)))
+				.fuelType(FUEL_TYPES[random.nextInt(FUEL_TYPES.length)])
+				.mileage(random.nextInt(300000))
+				.engineCapacity((10 + random.nextInt(40)) / 10.0)
+				.transmission(random.nextBoolean() ? "Manual" : "Automatic")
+				.description(MARKER)
+				.imageGallery(new ArrayList<>())
+				.build();
+		for (int i = 0; i < images; i++) {
+			String publicId = "stub/" + UUID.randomUUID();
+			car.getImageGallery().add(ImageInfo.builder()
+					.car(car)
+					.imageUrl("https://images.stub.invalid/" + publicId + ".jpg")
+					.publicId(publicId)
+					.build());
+		}
+		return car;
+	}
+
+	private void runClients(List<Long> carIds, String token, byte[] image, int seconds,
+							Map<String, EndpointStats> stats) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		for (int c = 0; c < clients; c++) {
+			long seed = c;
+			executor.execute(() -> {
+				SplittableRandom random = new SplittableRandom(seed);
+				while (System.nanoTime() < deadline) {
+					Operation operation = nextOperation(random, carIds, token, image);
+					execute(operation, stats.computeIfAbsent(operation.endpoint(), endpoint -> new EndpointStats()));
+				}
+			});
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS)).isTrue();
+	}
+
+	// Read-heavy mix, roughly what the storefront and the admin panel generate together
+	private Operation nextOperation(SplittableRandom random, List<Long> carIds, String token, byte[] image) {
+		int roll = random.nextInt(100);
+		if (roll < 40) {
+			return new Operation("GET /api/cars?limit", get("/api/cars?limit=50"));
+		}
+		if (roll < 45) {
+			return new Operation("GET /api/cars", get("/api/cars"));
+		}
+		if (roll < 80) {
+			String brand = BRANDS[random.nextInt(BRANDS.length)].substring(0, 3).toLowerCase();
+			int maxPrice = 20000 + random.nextInt(180000);
+			return new Operation("GET /api/cars/search",
+					get("/api/cars/search?brand=" + brand + "&maxPrice=" + maxPrice + "&limit=50"));
+		}
+		if (roll < 90) {
+			return new Operation("GET /api/cars/facets", get("/api/cars/facets"));
+		}
+		if (roll < 97) {
+			long carId = carIds.get(random.nextInt(carIds.size()));
+			return new Operation("POST /api/cars/{id}/gallery", uploadImage(carId, token, image));
+		}
+		return new Operation("POST /api/cars", createCar(random, token));
+	}
+
+	private void execute(Operation operation, EndpointStats stats) {
+		long started = System.nanoTime();
+		try {
+			HttpResponse<Void> response = httpClient.send(operation.request(), HttpResponse.BodyHandlers.discarding());
+			if (response.statusCode() >= 400) {
+				stats.errors.increment();
+			}
+		} catch (IOException e) {
+			stats.errors.increment();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+		stats.latency.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+	}
+
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(uri(path)).GET().build();
+	}
+
+	private HttpRequest uploadImage(long carId, String token, byte[] image) {
+		String boundary = "loadtest-" + UUID.randomUUID();
+		byte[] head = ("--" + boundary + "\r\n" +
+				"Content-Disposition: form-data; name=\"file\"; filename=\"car.jpg\"\r\n" +
+				"Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+		byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+		byte[] body = ByteBuffer.allocate(head.length + image.length + tail.length)
+				.put(head).put(image).put(tail)
+				.array();
+		return HttpRequest.newBuilder(uri("/api/cars/" + carId + "/gallery"))
+				.header("Authorization", "Bearer " + token)
+				.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body))
+				.build();
+	}
+
+	private HttpRequest createCar(SplittableRandom random, String token) {
+		try {
+			Car car = randomCar(random, 0);
+			Map<String, Object> body = new LinkedHashMap<>();
+			body.put("brand", car.getBrand());
+			body.put("model", car.getModel());
+			body.put("productionYear", car.getProductionYear());
+			body.put("price", car.getPrice());
+			body.put("fuelType", car.getFuelType());
+			body.put("mileage", car.getMileage());
+			body.put("engineCapacity", car.getEngineCapacity());
+			body.put("transmission", car.getTransmission());
+			body.put("description", MARKER);
+			return HttpRequest.newBuilder(uri("/api/cars"))
+					.header("Authorization", "Bearer " + token)
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+					.build();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String login() throws IOException, InterruptedException {
+		byte[] credentials = objectMapper.writeValueAsBytes(Map.of("username", "admin", "password", "admin123"));
+		HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder(uri("/api/auth/login"))
+						.header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofByteArray(credentials))
+						.build(),
+				HttpResponse.BodyHandlers.ofByteArray());
+		assertThat(response.statusCode()).isEqualTo(200);
+		return objectMapper.readTree(response.body()).get("token").asText();
+	}
+
+	private byte[] sampleJpeg() throws IOException {
+		BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpg", out);
+		return out.toByteArray();
+	}
+
+	private Path writeReport(Map<String, EndpointStats> stats, double elapsedSeconds) throws IOException {
+		Map<String, Object> endpoints = new LinkedHashMap<>();
+		stats.entrySet().stream()
+				.sorted(Map.Entry.comparingByKey())
+				.forEach(entry -> endpoints.put(entry.getKey(), entry.getValue().toReport(elapsedSeconds)));
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("cars", carCount);
+		report.put("clients", clients);
+		report.put("threads", threadMode());
+		report.put("connectionPoolSize", Integer.getInteger("loadtest.pool-size", 20));
+		report.put("durationSeconds", elapsedSeconds);
+		report.put("database", jdbcTemplate.execute((Connection connection) ->
+				connection.getMetaData().getDatabaseProductName()));
+		report.put("endpoints", endpoints);
+
+		Path path = reportPath(threadMode());
+		Files.createDirectories(path.getParent());
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), report);
+		return path;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void printComparison() throws IOException {
+		Path platform = reportPath("platform");
+		Path virtual = reportPath("virtual");
+		if (!Files.exists(platform) || !Files.exists(virtual)) {
+			return;
+		}
+		Map<String, Map<String, Object>> platformEndpoints =
+				(Map<String, Map<String, Object>>) objectMapper.readValue(platform.toFile(), Map.class).get("endpoints");
+		Map<String, Map<String, Object>> virtualEndpoints =
+				(Map<String, Map<String, Object>>) objectMapper.readValue(virtual.toFile(), Map.class).get("endpoints");
+
+		System.out.printf("%-36s %14s %14s %12s %12s%n", "endpoint", "platform req/s", "virtual req/s", "platform p99", "virtual p99");
+		platformEndpoints.forEach((endpoint, platformStats) -> {
+			Map<String, Object> virtualStats = virtualEndpoints.get(endpoint);
+			if (virtualStats == null) {
+				return;
+			}
+			System.out.printf("%-36s %14.1f %14.1f %10dus %10dus%n", endpoint,
+					((Number) platformStats.get("throughputPerSecond")).doubleValue(),
+					((Number) virtualStats.get("throughputPerSecond")).doubleValue(),
+					p99(platformStats), p99(virtualStats));
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static long p99(Map<String, Object> endpointStats) {
+		return ((Number) ((Map<String, Object>) endpointStats.get("latencyMicros")).get("p99")).longValue();
+	}
+
+	private static String threadMode() {
+		return VIRTUAL_THREADS ? "virtual" : "platform";
+	}
+
+	private static Path reportPath(String threadMode) {
+		return Path.of("target", "loadtest-report-" + threadMode + ".json");
+	}
+
+	private void removeSeededRows() {
+		jdbcTemplate.update("DELETE FROM car_images WHERE car_id IN (SELECT id FROM cars WHERE description = ?)", MARKER);
+		jdbcTemplate.update("DELETE FROM cars WHERE description = ?", MARKER);
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private record Operation(String endpoint, HttpRequest request) {
+	}
+
+	private static final class EndpointStats {
+
+		private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+		private final LongAdder errors = new LongAdder();
+
+		Map<String, Object> toReport(double elapsedSeconds) {
+			Map<String, Object> percentiles = new LinkedHashMap<>();
+			percentiles.put("p50", latency.getValueAtPercentile(50));
+			percentiles.put("p90", latency.getValueAtPercentile(90));
+			percentiles.put("p99", latency.getValueAtPercentile(99));
+			percentiles.put("p99.9", latency.getValueAtPercentile(99.9));
+			percentiles.put("max", latency.getMaxValue());
+			percentiles.put("mean", latency.getMean());
+
+			// The full histogram in HdrHistogram's compressed form, for merging or re-plotting later
+			ByteBuffer buffer = ByteBuffer.allocate(latency.getNeededByteBufferCapacity());
+			int length = latency.encodeIntoCompressedByteBuffer(buffer);
+
+			Map<String, Object> report = new LinkedHashMap<>();
+			report.put("requests", latency.getTotalCount());
+			report.put("errors", errors.sum());
+			report.put("throughputPerSecond", latency.getTotalCount() / elapsedSeconds);
+			report.put("latencyMicros", percentiles);
+			report.put("histogram", Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+			return report;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.cd.car_dealership.repository;
+
+import com.cd.car_dealership.TestCars;
+import com.cd.car_dealership.dto.CarSearchCriteria;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs on H2, which has no full-text search: "q" takes the substring fallback.
+// Ranking on the stored tsvector is covered by CarFullTextSearchPostgresTests (-Ppostgres).
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+class CarSearchRepositoryTests {
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Test
+	void buildsAPrefixQueryFromLettersAndDigitsOnly() {
+		assertThat(CarSearchRepositoryImpl.searchTerms("  BMW 320d ")).containsExactly("bmw", "320d");
+		// tsquery operators and LIKE wildcards never reach the query
+		assertThat(CarSearchRepositoryImpl.searchTerms("bmw & !audi | (x5):* %_")).containsExactly("bmw", "audi", "x5");
+		assertThat(CarSearchRepositoryImpl.searchTerms("Škoda Öko")).containsExactly("škoda", "öko");
+		assertThat(CarSearchRepositoryImpl.searchTerms("&!|")).isEmpty();
+		assertThat(CarSearchRepositoryImpl.searchTerms(null)).isEmpty();
+		assertThat(CarSearchRepositoryImpl.searchTerms("a b c d e f g h i j")).hasSize(8);
+
+		assertThat(CarSearchRepositoryImpl.toPrefixTsQuery(List.of("bmw", "320d"))).isEqualTo("bmw:* & 320d:*");
+	}
+
+	@Test
+	void freeTextFallsBackToMatchingEveryWordWithoutFullTextSearch() {
+		save("BMW", "320d", "Well kept, one owner");
+		save("Audi", "A4", "BMW-like handling");
+		save("Skoda", "Octavia", null);
+
+		assertThat(search("bmw")).containsExactlyInAnyOrder("BMW 320d", "Audi A4");
+		assertThat(search("BMW own")).containsExactly("BMW 320d");
+		assertThat(search("octa")).containsExactly("Skoda Octavia");
+		assertThat(search("%")).hasSize(3);
+		assertThat(search("tesla")).isEmpty();
+	}
+
+	@Test
+	void clampsTheRequestedLimit() {
+		save("BMW", "320d", null);
+		save("Audi", "A4", null);
+		save("Skoda", "Octavia", null);
+
+		assertThat(carRepository.search(CarSearchCriteria.builder().limit(-1).build())).hasSize(1);
+		assertThat(carRepository.search(CarSearchCriteria.builder().limit(0).build())).hasSize(1);
+		assertThat(carRepository.search(CarSearchCriteria.builder().limit(Integer.MAX_VALUE).build())).hasSize(3);
+		assertThat(carRepository.search(new CarSearchCriteria())).hasSize(3);
+		assertThat(CarSearchRepositoryImpl.clampLimit(1000)).isEqualTo(100);
+	}
+
+	private List<String> search(String q) {
+		return carRepository.search(CarSearchCriteria.builder().q(q).build()).stream()
+				.map(car -> car.getBrand() + " " + car.getModel())
+				.collect(Collectors.toList());
+	}
+
+	private void save(String brand, String model, String description) {
+		carRepository.save(TestCars.car(brand).model(model).description(description).build());
+	}
+}
@@ -0,0 +1,159 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.TestCars;
+import com.cd.car_dealership.config.CacheConfig;
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.dto.CarPageDTO;
+import com.cd.car_dealership.model.Car;
+import com.cd.car_dealership.repository.CarRepository;
+import com.cd.car_dealership.repository.ImageDeletionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs without a test transaction, so evictions registered for after commit are applied like in production
+@DataJpaTest(properties = {
+		"cache.car-pages.maximum-cars=5",
+		"spring.flyway.enabled=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CarService.class, CacheConfig.class})
+class CarServiceCacheTests {
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Autowired
+	private ImageDeletionRepository imageDeletionRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@MockitoBean
+	private ImageDerivativeService imageDerivativeService;
+
+	@MockitoBean
+	private ImageValidationService imageValidationService;
+
+	@MockitoBean
+	private ImageUploadPool imageUploadPool;
+
+	@MockitoBean
+	private InventoryIndex inventoryIndex;
+
+	@MockitoBean
+	private InventoryVersion inventoryVersion;
+
+	@AfterEach
+	void tearDown() {
+		imageDeletionRepository.deleteAll();
+		carRepository.deleteAll();
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+	}
+
+	@Test
+	void cachesPagesButNeverTheWholeInventory() {
+		saveCar("BMW");
+		saveCar("Audi");
+
+		carService.getAllCars();
+		assertThat(cached(CacheConfig.CAR_LISTS).asMap()).isEmpty();
+
+		CarPageDTO page = carService.getCarsPage(null, 10);
+		assertThat(carService.getCarsPage(null, 10)).isSameAs(page);
+		assertThat(cached(CacheConfig.CAR_LISTS).asMap()).hasSize(1);
+	}
+
+	@Test
+	void limitsAboveTheMaximumShareOneCachedPage() {
+		saveCar("BMW");
+
+		CarPageDTO page = carService.getCarsPage(null, 500);
+		assertThat(carService.getCarsPage(null, 1000)).isSameAs(page);
+		assertThat(carService.getCarsPage(null, 100)).isSameAs(page);
+		assertThat(cached(CacheConfig.CAR_LISTS).asMap()).containsOnlyKeys("100:null");
+	}
+
+	@Test
+	void boundsPagesByTheNumberOfCarsTheyHold() {
+		for (int i = 0; i < 12; i++) {
+			saveCar("Car " + i);
+		}
+
+		String cursor = null;
+		do {
+			cursor = carService.getCarsPage(cursor, 4).getNextCursor();
+		} while (cursor != null);
+
+		Cache<Object, Object> pages = cached(CacheConfig.CAR_LISTS);
+		pages.cleanUp();
+		assertThat(pages.policy().eviction().orElseThrow().weightedSize().orElseThrow()).isLessThanOrEqualTo(5);
+		assertThat(pages.asMap()).isNotEmpty();
+	}
+
+	@Test
+	void createEvictsPagesButKeepsCarDetails() {
+		Long id = saveCar("BMW").getId();
+		carService.getCarById(id);
+		carService.getCarsPage(null, 10);
+
+		carService.createCar(TestCars.carDTO("Audi").build());
+
+		assertThat(cached(CacheConfig.CAR_LISTS).asMap()).isEmpty();
+		assertThat(cached(CacheConfig.CARS).asMap()).containsOnlyKeys(id);
+		assertThat(carService.getCarsPage(null, 10).getItems()).hasSize(2);
+	}
+
+	@Test
+	void updateEvictsThatCarAndPages() {
+		Long updated = saveCar("BMW").getId();
+		Long other = saveCar("Audi").getId();
+		carService.getCarById(updated);
+		carService.getCarById(other);
+		carService.getCarsPage(null, 10);
+
+		carService.updateCar(updated, TestCars.carDTO("Volvo").build());
+
+		assertThat(cached(CacheConfig.CAR_LISTS).asMap()).isEmpty();
+		assertThat(cached(CacheConfig.CARS).asMap()).containsOnlyKeys(other);
+		assertThat(carService.getCarById(updated)).hasValueSatisfying(car -> assertThat(car.getBrand()).isEqualTo("Volvo"));
+	}
+
+	@Test
+	void deleteEvictsThatCarAndPages() {
+		Long deleted = saveCar("BMW").getId();
+		Long other = saveCar("Audi").getId();
+		carService.getCarById(deleted);
+		carService.getCarById(other);
+		carService.getCarsPage(null, 10);
+
+		assertThat(carService.deleteCar(deleted)).isTrue();
+
+		assertThat(cached(CacheConfig.CAR_LISTS).asMap()).isEmpty();
+		assertThat(cached(CacheConfig.CARS).asMap()).containsOnlyKeys(other);
+		assertThat(carService.getCarById(deleted)).isEmpty();
+		assertThat(carService.getCarsPage(null, 10).getItems()).extracting(CarDTO::getBrand).containsExactly("Audi");
+	}
+
+	@SuppressWarnings("unchecked")
+	private Cache<Object, Object> cached(String name) {
+		return (Cache<Object, Object>) cacheManager.getCache(name).getNativeCache();
+	}
+
+	private Car saveCar(String brand) {
+		return carRepository.save(TestCars.car(brand).build());
+	}
+}
@@ -0,0 +1,188 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.TestCars;
+import com.cd.car_dealership.model.ImageDeletion;
+import com.cd.car_dealership.repository.CarRepository;
+import com.cd.car_dealership.repository.ImageDeletionRepository;
+import com.cd.car_dealership.repository.ImageInfoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Runs without a test transaction, so the gallery save and the outbox writes commit like in production
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(CarService.class)
+class CarServiceGalleryTests {
+
+	private static final MockMultipartFile PHOTO =
+			new MockMultipartFile("file", "photo.jpg", "image/jpeg", new byte[] {1, 2, 3});
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Autowired
+	private ImageInfoRepository imageInfoRepository;
+
+	@Autowired
+	private ImageDeletionRepository imageDeletionRepository;
+
+	@MockitoBean
+	private ImageDerivativeService imageDerivativeService;
+
+	@MockitoBean
+	private ImageValidationService imageValidationService;
+
+	@MockitoBean
+	private ImageUploadPool imageUploadPool;
+
+	@MockitoBean
+	private InventoryIndex inventoryIndex;
+
+	@MockitoBean
+	private InventoryVersion inventoryVersion;
+
+	@AfterEach
+	void tearDown() {
+		imageDeletionRepository.deleteAll();
+		carRepository.deleteAll();
+	}
+
+	@Test
+	void addsTheStoredImagesToTheGallery() throws Exception {
+		Long carId = carRepository.save(TestCars.car("BMW").build()).getId();
+		when(imageDerivativeService.process(any())).thenReturn(derivatives("photo"));
+
+		assertThat(carService.addImageToGallery(carId, PHOTO)).hasValueSatisfying(car -> {
+			assertThat(car.getImageGallery()).containsExactly("https://images.test/photo-full.jpg");
+			assertThat(car.getThumbnailGallery()).containsExactly("https://images.test/photo-thumb.jpg");
+		});
+		assertThat(imageDeletionRepository.count()).isZero();
+	}
+
+	@Test
+	void uploadsNothingForAnUnknownCar() throws Exception {
+		assertThat(carService.addImageToGallery(999L, PHOTO)).isEmpty();
+
+		verify(imageDerivativeService, never()).process(any());
+		assertThat(imageDeletionRepository.count()).isZero();
+	}
+
+	@Test
+	void queuesTheStoredImagesWhenTheCarIsDeletedDuringTheUpload() throws Exception {
+		Long carId = carRepository.save(TestCars.car("BMW").build()).getId();
+		when(imageDerivativeService.process(any())).thenAnswer(invocation -> {
+			carRepository.deleteById(carId);
+			return derivatives("photo");
+		});
+
+		assertThat(carService.addImageToGallery(carId, PHOTO)).isEmpty();
+
+		assertThat(imageDeletionRepository.findAll()).extracting(ImageDeletion::getPublicId)
+				.containsExactlyInAnyOrder("photo-full", "photo-card", "photo-thumb");
+	}
+
+	@Test
+	void queuesTheStoredImagesWhenTheGallerySaveFails() throws Exception {
+		Long carId = carRepository.save(TestCars.car("BMW").build()).getId();
+		// A gallery row without an image URL violates the NOT NULL constraint
+		when(imageDerivativeService.process(any())).thenReturn(new ImageDerivativeService.ImageDerivatives("b".repeat(64),
+				new ImageStore.StoredImage(null, "photo-full"), null, null));
+
+		assertThatThrownBy(() -> carService.addImageToGallery(carId, PHOTO)).isInstanceOf(RuntimeException.class);
+
+		assertThat(imageDeletionRepository.findAll()).extracting(ImageDeletion::getPublicId).containsExactly("photo-full");
+		assertThat(imageInfoRepository.findByCarId(carId)).isEmpty();
+	}
+
+	@Test
+	void cancelsQueuedDeletionsOfReusedImages() throws Exception {
+		Long carId = carRepository.save(TestCars.car("BMW").build()).getId();
+		// The gallery entry the images came from was removed, its deletions are queued but not claimed yet
+		enqueue("photo-full", LocalDateTime.now().minusSeconds(1));
+		enqueue("photo-thumb", LocalDateTime.now().minusSeconds(1));
+		enqueue("other", LocalDateTime.now().minusSeconds(1));
+		when(imageDerivativeService.process(any())).thenReturn(reused("photo"));
+
+		assertThat(carService.addImageToGallery(carId, PHOTO)).isPresent();
+
+		assertThat(imageDeletionRepository.findAll()).extracting(ImageDeletion::getPublicId).containsExactly("other");
+		assertThat(imageInfoRepository.findByCarId(carId)).hasSize(1);
+	}
+
+	@Test
+	void refusesReusedImagesWhileTheirDeletionIsLeased() throws Exception {
+		Long carId = carRepository.save(TestCars.car("BMW").build()).getId();
+		enqueue("photo-full", LocalDateTime.now().plusMinutes(5));
+		when(imageDerivativeService.process(any())).thenReturn(reused("photo"));
+
+		assertThatThrownBy(() -> carService.addImageToGallery(carId, PHOTO))
+				.hasRootCauseMessage("An identical image is being deleted, retry the upload");
+
+		assertThat(imageInfoRepository.findByCarId(carId)).isEmpty();
+		assertThat(imageDeletionRepository.findAll()).extracting(ImageDeletion::getPublicId)
+				.contains("photo-full", "photo-card", "photo-thumb");
+	}
+
+	@Test
+	void refusesReusedImagesWhoseDeletionAlreadyFinished() throws Exception {
+		Long carId = carRepository.save(TestCars.car("BMW").build()).getId();
+		// Neither a gallery row nor a queued deletion is left for the images the upload matched
+		when(imageDerivativeService.process(any())).thenReturn(reused("photo"));
+
+		assertThatThrownBy(() -> carService.addImageToGallery(carId, PHOTO))
+				.hasRootCauseMessage("An identical image is being deleted, retry the upload");
+
+		assertThat(imageInfoRepository.findByCarId(carId)).isEmpty();
+	}
+
+	@Test
+	void reusesImagesOfAnotherGalleryEntry() throws Exception {
+		Long firstId = carRepository.save(TestCars.car("BMW").build()).getId();
+		Long secondId = carRepository.save(TestCars.car("Audi").build()).getId();
+		when(imageDerivativeService.process(any())).thenReturn(derivatives("photo"), reused("photo"));
+
+		carService.addImageToGallery(firstId, PHOTO);
+		carService.addImageToGallery(secondId, PHOTO);
+
+		assertThat(imageInfoRepository.findByCarId(secondId)).hasSize(1);
+		assertThat(imageDeletionRepository.count()).isZero();
+	}
+
+	private void enqueue(String publicId, LocalDateTime nextAttemptAt) {
+		ImageDeletion deletion = imageDeletionRepository.save(ImageDeletion.builder().publicId(publicId).build());
+		deletion.setNextAttemptAt(nextAttemptAt);
+		imageDeletionRepository.save(deletion);
+	}
+
+	private static ImageDerivativeService.ImageDerivatives reused(String name) {
+		ImageDerivativeService.ImageDerivatives derivatives = derivatives(name);
+		derivatives.setReused(true);
+		return derivatives;
+	}
+
+	private static ImageDerivativeService.ImageDerivatives derivatives(String name) {
+		return new ImageDerivativeService.ImageDerivatives("a".repeat(64),
+				new ImageStore.StoredImage("https://images.test/" + name + "-full.jpg", name + "-full"),
+				new ImageStore.StoredImage("https://images.test/" + name + "-card.jpg", name + "-card"),
+				new ImageStore.StoredImage("https://images.test/" + name + "-thumb.jpg", name + "-thumb"));
+	}
+}
@@ -0,0 +1,122 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.TestCars;
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.dto.CarSearchCriteria;
+import com.cd.car_dealership.model.Car;
+import com.cd.car_dealership.model.ImageInfo;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.flyway.enabled=false"
+})
+@Import(CarService.class)
+class CarServiceQueryCountTests {
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@MockitoBean
+	private ImageDerivativeService imageDerivativeService;
+
+	@MockitoBean
+	private ImageValidationService imageValidationService;
+
+	@MockitoBean
+	private ImageUploadPool imageUploadPool;
+
+	@MockitoBean
+	private InventoryIndex inventoryIndex;
+
+	@MockitoBean
+	private InventoryVersion inventoryVersion;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class)
+				.getStatistics();
+		when(inventoryIndex.mayMatch(any())).thenReturn(true);
+	}
+
+	@Test
+	void getAllCarsLoadsGalleriesWithConstantNumberOfStatements() {
+		saveCars(3);
+		long smallInventory = countStatements(() -> carService.getAllCars());
+
+		saveCars(30);
+		long largeInventory = countStatements(() -> carService.getAllCars());
+
+		assertThat(largeInventory).isEqualTo(smallInventory);
+		List<CarDTO> cars = carService.getAllCars();
+		assertThat(cars).hasSize(33)
+				.allSatisfy(car -> assertThat(car.getImageGallery()).hasSize(2));
+	}
+
+	@Test
+	void searchCarsLoadsGalleriesWithConstantNumberOfStatements() {
+		saveCars(3);
+		long smallInventory = countStatements(() -> carService.searchCars(
+				CarSearchCriteria.builder().brand("BMW").build()));
+
+		saveCars(30);
+		long largeInventory = countStatements(() -> carService.searchCars(
+				CarSearchCriteria.builder().brand("BMW").build()));
+
+		assertThat(largeInventory).isEqualTo(smallInventory);
+	}
+
+	@Test
+	void getCarsPageLoadsGalleriesWithConstantNumberOfStatements() {
+		saveCars(30);
+		long firstPage = countStatements(() -> carService.getCarsPage(null, 5));
+		long largerPage = countStatements(() -> carService.getCarsPage(null, 25));
+
+		assertThat(largerPage).isEqualTo(firstPage);
+	}
+
+	private long countStatements(Supplier<?> listCall) {
+		entityManager.flush();
+		entityManager.clear();
+		statistics.clear();
+		listCall.get();
+		return statistics.getPrepareStatementCount();
+	}
+
+	private void saveCars(int count) {
+		for (int i = 0; i < count; i++) {
+			Car car = TestCars.car("BMW").model("X" + i).build();
+			for (int j = 0; j < 2; j++) {
+				ImageInfo image = ImageInfo.builder()
+						.car(car)
+						.imageUrl("https://example.com/" + i + "/" + j + ".jpg")
+						.publicId(i + "-" + j)
+						.build();
+				car.getImageGallery().add(image);
+			}
+			entityManager.persist(car);
+		}
+	}
+
+}
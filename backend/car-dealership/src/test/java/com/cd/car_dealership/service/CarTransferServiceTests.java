@@ -0,0 +1,154 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.config.CacheConfig;
+import com.cd.car_dealership.dto.CarImportErrorDTO;
+import com.cd.car_dealership.dto.CarImportResultDTO;
+import com.cd.car_dealership.dto.CarPageDTO;
+import com.cd.car_dealership.repository.CarRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+
+// A chunk size of 2 makes every import below span several transactions. There is no test transaction,
+// so each chunk really commits on its own like in production.
+@DataJpaTest(properties = {
+		"cars.import.chunk-size=2",
+		"spring.flyway.enabled=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CarTransferService.class, CacheConfig.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class CarTransferServiceTests {
+
+	private static final String TOYOTA = "{\"brand\":\"Toyota\",\"model\":\"Corolla\",\"productionYear\":2022,\"price\":95000," +
+			"\"fuelType\":\"Hybrid\",\"mileage\":8000,\"engineCapacity\":1.8,\"transmission\":\"Automatic\"}\n";
+
+	@Autowired
+	private CarTransferService carTransferService;
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@MockitoBean
+	private CarService carService;
+
+	@MockitoBean
+	private InventoryIndex inventoryIndex;
+
+	@MockitoBean
+	private InventoryVersion inventoryVersion;
+
+	@AfterEach
+	void tearDown() {
+		carRepository.deleteAll();
+		carLists().clear();
+	}
+
+	@Test
+	void importsValidCsvRowsAndReportsRejectedOnes() throws IOException {
+		String csv = "brand,model,productionYear,price,fuelType,mileage,engineCapacity,transmission,description\n" +
+				"BMW,X5,2020,150000.00,Diesel,45000,3.0,Automatic,\n" +
+				"Audi,A4,2019,85000,Gasoline,32000,2.0,Manual,Clean\n" +
+				"Ford,Focus,1700,20000,Gasoline,100000,1.6,Manual,\n" +
+				"Kia,Ceed,2018,not-a-price,Diesel,90000,1.6,Manual,\n" +
+				"Skoda,Octavia,2021,99000,Diesel,12000,2.0,Automatic,\"Quoted, with comma\"\n";
+
+		CarImportResultDTO result = carTransferService.importCars(stream(csv), CarTransferService.Format.CSV);
+
+		assertThat(result.getImported()).isEqualTo(3);
+		assertThat(result.getRejected()).isEqualTo(2);
+		assertThat(result.getErrors()).extracting(CarImportErrorDTO::getRow).containsExactly(3L, 4L);
+		assertThat(carRepository.count()).isEqualTo(3);
+		verify(inventoryIndex).rebuild();
+		verify(inventoryVersion).bump();
+	}
+
+	@Test
+	void importsJsonLines() throws IOException {
+		String ndjson = "{\"brand\":\"Toyota\",\"model\":\"Corolla\",\"productionYear\":2022,\"price\":95000,\"fuelType\":\"Hybrid\",\"mileage\":8000,\"engineCapacity\":1.8,\"transmission\":\"Automatic\"}\n" +
+				"{\"brand\":\" \",\"model\":\"Unknown\",\"productionYear\":2022,\"price\":1,\"fuelType\":\"Diesel\",\"mileage\":1,\"engineCapacity\":1.0,\"transmission\":\"Manual\"}\n" +
+				"{\"id\":999,\"brand\":\"Volvo\",\"model\":\"XC60\",\"productionYear\":2021,\"price\":180000,\"fuelType\":\"Diesel\",\"mileage\":30000,\"engineCapacity\":2.0,\"transmission\":\"Automatic\",\"imageGallery\":[]}\n";
+
+		CarImportResultDTO result = carTransferService.importCars(stream(ndjson), CarTransferService.Format.NDJSON);
+
+		assertThat(result.getImported()).isEqualTo(2);
+		assertThat(result.getRejected()).isEqualTo(1);
+		assertThat(result.getErrors()).extracting(CarImportErrorDTO::getRow).containsExactly(2L);
+		assertThat(carRepository.findAll()).extracting("brand").containsExactlyInAnyOrder("Toyota", "Volvo");
+	}
+
+	@Test
+	void keepsCommittedChunksWhenTheInputIsMalformed() throws IOException {
+		cacheAPage();
+		String ndjson = TOYOTA + TOYOTA + TOYOTA + "{\"brand\":\"Volvo\",\"model\" 1}\n" + TOYOTA;
+
+		CarImportResultDTO result = carTransferService.importCars(stream(ndjson), CarTransferService.Format.NDJSON);
+
+		assertThat(result.getImported()).isEqualTo(3);
+		assertThat(result.getRejected()).isEqualTo(1);
+		assertThat(result.getErrors()).singleElement().satisfies(error -> {
+			assertThat(error.getRow()).isEqualTo(4L);
+			assertThat(error.getMessage()).startsWith("Malformed input, import stopped");
+		});
+		assertThat(carRepository.count()).isEqualTo(3);
+		assertThat(carLists().get("10:null")).isNull();
+		verify(inventoryIndex).rebuild();
+		verify(inventoryVersion).bump();
+	}
+
+	@Test
+	void refreshesCachesWhenTheUploadFailsAfterChunksWereCommitted() {
+		cacheAPage();
+		InputStream brokenUpload = new SequenceInputStream(stream(TOYOTA + TOYOTA + TOYOTA), new InputStream() {
+			@Override
+			public int read() throws IOException {
+				throw new IOException("Connection reset");
+			}
+		});
+
+		assertThatThrownBy(() -> carTransferService.importCars(brokenUpload, CarTransferService.Format.NDJSON))
+				.isInstanceOf(IOException.class)
+				.hasMessage("Connection reset");
+
+		// The first chunk was committed before the failure; the third row was still waiting for its chunk
+		assertThat(carRepository.count()).isEqualTo(2);
+		assertThat(carLists().get("10:null")).isNull();
+		verify(inventoryIndex).rebuild();
+		verify(inventoryVersion).bump();
+	}
+
+	private void cacheAPage() {
+		carLists().put("10:null", new CarPageDTO(new ArrayList<>(), null));
+	}
+
+	private Cache carLists() {
+		return cacheManager.getCache(CacheConfig.CAR_LISTS);
+	}
+
+	private static InputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
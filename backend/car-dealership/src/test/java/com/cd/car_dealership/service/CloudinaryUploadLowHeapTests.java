@@ -0,0 +1,180 @@
+package com.cd.car_dealership.service;
+
+import com.cloudinary.Cloudinary;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs in its own surefire execution with -Xmx64m (see pom.xml): the concurrent uploads below add up to
+// far more than the heap, so they only pass if no upload is ever buffered in memory. The real Cloudinary
+// HTTP client sends every file to a local stub of the upload API, which reads each request body to the end.
+class CloudinaryUploadLowHeapTests {
+
+	private static final int CONCURRENT_UPLOADS = 16;
+	private static final long FILE_SIZE = 10L * 1024 * 1024;
+
+	private final CloudinaryService cloudinaryService = new CloudinaryService(new SimpleMeterRegistry());
+	private final List<Path> sourceFiles = new ArrayList<>();
+	private final AtomicInteger fullUploadsReceived = new AtomicInteger();
+	private final CountDownLatch allUploadsStarted = new CountDownLatch(CONCURRENT_UPLOADS);
+	private HttpServer uploadApi;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		uploadApi = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), CONCURRENT_UPLOADS);
+		uploadApi.setExecutor(Executors.newFixedThreadPool(CONCURRENT_UPLOADS));
+		uploadApi.createContext("/", exchange -> {
+			// Bodies are only read once every upload is under way, so all of them are in flight together
+			allUploadsStarted.countDown();
+			try {
+				allUploadsStarted.await(30, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			long received = 0;
+			try (InputStream body = exchange.getRequestBody()) {
+				byte[] buffer = new byte[8192];
+				for (int read; (read = body.read(buffer)) != -1; ) {
+					received += read;
+				}
+			}
+			// The multipart body carries the whole file plus the signed upload parameters
+			if (received > FILE_SIZE) {
+				fullUploadsReceived.incrementAndGet();
+			}
+			int id = fullUploadsReceived.get();
+			byte[] response = ("{\"secure_url\":\"https://res.cloudinary.com/demo/image/upload/car-" + id + ".jpg\"," +
+					"\"public_id\":\"car-" + id + "\"}").getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		});
+		uploadApi.start();
+
+		// The client honours http.maxConnections (default 5 per host); allow every upload to be in flight at once
+		System.setProperty("http.maxConnections", String.valueOf(CONCURRENT_UPLOADS));
+		ReflectionTestUtils.setField(cloudinaryService, "cloudName", "demo");
+		ReflectionTestUtils.setField(cloudinaryService, "apiKey", "key");
+		ReflectionTestUtils.setField(cloudinaryService, "apiSecret", "secret");
+		ReflectionTestUtils.setField(cloudinaryService, "timeoutSeconds", 30);
+		cloudinaryService.init();
+		Cloudinary cloudinary = (Cloudinary) ReflectionTestUtils.getField(cloudinaryService, "cloudinary");
+		InetSocketAddress address = uploadApi.getAddress();
+		cloudinary.config.uploadPrefix = "http://" + address.getHostString() + ":" + address.getPort();
+
+		for (int i = 0; i < CONCURRENT_UPLOADS; i++) {
+			Path file = Files.createTempFile("low-heap-upload-", ".jpg");
+			try (RandomAccessFile sparse = new RandomAccessFile(file.toFile(), "rw")) {
+				sparse.setLength(FILE_SIZE);
+			}
+			sourceFiles.add(file);
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		System.clearProperty("http.maxConnections");
+		uploadApi.stop(0);
+		((ExecutorService) uploadApi.getExecutor()).shutdownNow();
+		for (Path file : sourceFiles) {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void concurrentTenMegabyteUploadsStreamFromDisk() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_UPLOADS);
+		try {
+			List<Future<ImageStore.StoredImage>> uploads = new ArrayList<>();
+			for (Path file : sourceFiles) {
+				uploads.add(executor.submit(() -> cloudinaryService.upload(new DiskMultipartFile(file))));
+			}
+			for (Future<ImageStore.StoredImage> upload : uploads) {
+				assertThat(upload.get().getImageUrl()).startsWith("https://res.cloudinary.com/demo/");
+			}
+			assertThat(allUploadsStarted.getCount()).isZero();
+			assertThat(fullUploadsReceived).hasValue(CONCURRENT_UPLOADS);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// Behaves like a servlet part spooled to disk; reading it into a byte array fails the test
+	private static class DiskMultipartFile implements MultipartFile {
+
+		private final Path path;
+
+		DiskMultipartFile(Path path) {
+			this.path = path;
+		}
+
+		@Override
+		public String getName() {
+			return "file";
+		}
+
+		@Override
+		public String getOriginalFilename() {
+			return path.getFileName().toString();
+		}
+
+		@Override
+		public String getContentType() {
+			return "image/jpeg";
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return getSize() == 0;
+		}
+
+		@Override
+		public long getSize() {
+			return FILE_SIZE;
+		}
+
+		@Override
+		public byte[] getBytes() {
+			throw new AssertionError("Upload was buffered on the heap");
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return Files.newInputStream(path);
+		}
+
+		@Override
+		public void transferTo(File dest) throws IOException {
+			Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+}
@@ -0,0 +1,178 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.TestCars;
+import com.cd.car_dealership.model.Car;
+import com.cd.car_dealership.model.ImageDeletion;
+import com.cd.car_dealership.model.ImageInfo;
+import com.cd.car_dealership.repository.CarRepository;
+import com.cd.car_dealership.repository.ImageDeletionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Runs without a test transaction, so every phase of the worker commits on its own like in production
+@DataJpaTest(properties = {
+		"image.deletion.batch-size=2",
+		"image.deletion.initial-backoff-ms=1000",
+		"spring.flyway.enabled=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ImageDeletionWorker.class)
+class ImageDeletionWorkerTests {
+
+	@Autowired
+	private ImageDeletionWorker worker;
+
+	@Autowired
+	private ImageDeletionRepository imageDeletionRepository;
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@MockitoBean
+	private ImageStore imageStore;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		imageDeletionRepository.deleteAll();
+		carRepository.deleteAll();
+	}
+
+	@Test
+	void drainsTheOutboxInBatches() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			enqueue("image-" + i);
+		}
+		when(imageStore.deleteAll(anyList())).thenReturn(Set.of());
+
+		worker.drain();
+
+		verify(imageStore, times(3)).deleteAll(anyList());
+		assertThat(imageDeletionRepository.count()).isZero();
+	}
+
+	@Test
+	void callsTheStoreWithoutATransactionAndLeasesTheClaimedRows() throws Exception {
+		ImageDeletion deletion = enqueue("image-1");
+		List<LocalDateTime> leasedUntil = new ArrayList<>();
+		List<Boolean> inTransaction = new ArrayList<>();
+		when(imageStore.deleteAll(anyList())).thenAnswer(invocation -> {
+			inTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+			leasedUntil.add(imageDeletionRepository.findById(deletion.getId()).orElseThrow().getNextAttemptAt());
+			return Set.of();
+		});
+
+		worker.drain();
+
+		assertThat(inTransaction).containsExactly(false);
+		// The claim was committed before the call, so other instances skip the row until the lease runs out
+		assertThat(leasedUntil.get(0)).isAfter(LocalDateTime.now().plusMinutes(4));
+		assertThat(imageDeletionRepository.count()).isZero();
+	}
+
+	@Test
+	void reschedulesFailedDeletionsWithExponentialBackoff() throws Exception {
+		ImageDeletion deletion = enqueue("image-1");
+		ImageDeletion deleted = enqueue("image-2");
+		when(imageStore.deleteAll(anyList())).thenReturn(Set.of("image-1"));
+
+		LocalDateTime before = LocalDateTime.now();
+		worker.drain();
+
+		assertThat(imageDeletionRepository.findById(deleted.getId())).isEmpty();
+		ImageDeletion first = imageDeletionRepository.findById(deletion.getId()).orElseThrow();
+		assertThat(first.getAttempts()).isEqualTo(1);
+		assertThat(first.getLastError()).isNotBlank();
+		assertThat(first.getNextAttemptAt()).isBetween(before.plusSeconds(1), LocalDateTime.now().plusSeconds(1));
+
+		// The second failure waits twice as long; the store's exception is recorded as the error
+		makeDue(first);
+		when(imageStore.deleteAll(anyList())).thenThrow(new IllegalStateException("store unavailable"));
+		before = LocalDateTime.now();
+		worker.drain();
+
+		ImageDeletion second = imageDeletionRepository.findById(deletion.getId()).orElseThrow();
+		assertThat(second.getAttempts()).isEqualTo(2);
+		assertThat(second.getLastError()).contains("store unavailable");
+		assertThat(second.getNextAttemptAt()).isBetween(before.plusSeconds(2), LocalDateTime.now().plusSeconds(2));
+	}
+
+	@Test
+	void leavesRowsThatAreNotDueYet() throws Exception {
+		ImageDeletion deletion = enqueue("image-1");
+		deletion.setNextAttemptAt(LocalDateTime.now().plusMinutes(10));
+		imageDeletionRepository.save(deletion);
+
+		worker.drain();
+
+		verify(imageStore, never()).deleteAll(anyList());
+		assertThat(imageDeletionRepository.findById(deletion.getId())).isPresent();
+	}
+
+	@Test
+	void skipsImagesThatAreStillReferenced() throws Exception {
+		Car car = TestCars.car("BMW").build();
+		car.getImageGallery().add(ImageInfo.builder()
+				.car(car)
+				.imageUrl("https://img/shared.jpg")
+				.publicId("shared")
+				.build());
+		carRepository.save(car);
+		enqueue("shared");
+		enqueue("orphan");
+		when(imageStore.deleteAll(anyList())).thenReturn(Set.of());
+
+		worker.drain();
+
+		verify(imageStore).deleteAll(List.of("orphan"));
+		assertThat(imageDeletionRepository.count()).isZero();
+	}
+
+	@Test
+	void settlesReferencedImagesWhenClaimingThem() throws Exception {
+		Car car = TestCars.car("BMW").build();
+		car.getImageGallery().add(ImageInfo.builder()
+				.car(car)
+				.imageUrl("https://img/shared.jpg")
+				.publicId("shared")
+				.thumbnailPublicId("shared-thumb")
+				.build());
+		carRepository.save(car);
+		enqueue("shared");
+		enqueue("shared-thumb");
+		enqueue("shared");
+
+		worker.drain();
+
+		// A full batch of referenced rows still lets the drain go on to the next batch
+		verify(imageStore, never()).deleteAll(anyList());
+		assertThat(imageDeletionRepository.count()).isZero();
+	}
+
+	private ImageDeletion enqueue(String publicId) {
+		return imageDeletionRepository.save(ImageDeletion.builder().publicId(publicId).build());
+	}
+
+	private void makeDue(ImageDeletion deletion) {
+		deletion.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+		imageDeletionRepository.save(deletion);
+	}
+}
@@ -0,0 +1,148 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.model.ImageInfo;
+import com.cd.car_dealership.repository.ImageDeletionRepository;
+import com.cd.car_dealership.repository.ImageInfoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImageDerivativeServiceTests {
+
+	private final RecordingImageStore imageStore = new RecordingImageStore();
+	private final ImageInfoRepository imageInfoRepository = mock(ImageInfoRepository.class);
+	private final ImageDerivativeService service =
+			new ImageDerivativeService(imageStore, imageInfoRepository, mock(ImageDeletionRepository.class));
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(service, "jpegQuality", 0.85f);
+		ReflectionTestUtils.setField(service, "uploadConcurrency", 3);
+		service.init();
+		when(imageInfoRepository.findFirstByContentHash(anyString())).thenReturn(Optional.empty());
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void decodesOnceAndStoresEverySizedVariant() throws IOException {
+		ImageDerivativeService.ImageDerivatives derivatives = service.process(jpeg(2400, 1600));
+
+		assertThat(imageStore.uploadedSizes).containsExactlyInAnyOrder(
+				new Dimension(1200, 800), new Dimension(640, 427), new Dimension(320, 213));
+		assertThat(derivatives.getContentHash()).hasSize(64);
+		ImageInfo imageInfo = derivatives.toImageInfo(null);
+		assertThat(imageInfo.getCardUrl()).isNotNull().isNotEqualTo(imageInfo.getImageUrl());
+		assertThat(imageInfo.getThumbnailUrl()).isNotNull().isNotEqualTo(imageInfo.getCardUrl());
+		assertThat(imageInfo.storedPublicIds()).hasSize(3);
+		// Resizing runs on the CPU pool, the blocking store calls on the upload pool
+		assertThat(imageStore.uploadThreads).hasSize(3).allMatch(name -> name.startsWith("image-variant-upload-"));
+	}
+
+	@Test
+	void subsamplesLargePhotosWhileDecoding() throws IOException {
+		Path file = Files.createTempFile("large-", ".jpg");
+		try {
+			Files.write(file, jpeg(4000, 3000).getBytes());
+
+			BufferedImage decoded = ImageDerivativeService.decode(file);
+
+			// Every third pixel in both directions: still larger than the 1200x800 FULL variant
+			assertThat(new Dimension(decoded.getWidth(), decoded.getHeight())).isEqualTo(new Dimension(1334, 1000));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void neverUpscalesSmallImages() throws IOException {
+		service.process(jpeg(500, 300));
+
+		assertThat(imageStore.uploadedSizes).containsExactlyInAnyOrder(
+				new Dimension(500, 300), new Dimension(500, 300), new Dimension(320, 192));
+	}
+
+	@Test
+	void reusesStoredImagesForIdenticalContent() throws IOException {
+		ImageInfo stored = ImageInfo.builder()
+				.imageUrl("https://images.test/full.jpg").publicId("full")
+				.cardUrl("https://images.test/card.jpg").cardPublicId("card")
+				.thumbnailUrl("https://images.test/thumb.jpg").thumbnailPublicId("thumb")
+				.contentHash("a".repeat(64))
+				.build();
+		when(imageInfoRepository.findFirstByContentHash(anyString())).thenReturn(Optional.of(stored));
+
+		ImageDerivativeService.ImageDerivatives derivatives = service.process(jpeg(800, 600));
+
+		assertThat(imageStore.uploadedSizes).isEmpty();
+		assertThat(derivatives.publicIds()).containsExactly("full", "card", "thumb");
+	}
+
+	@Test
+	void storesUndecodableFormatsWithoutVariants() throws IOException {
+		MockMultipartFile webp = new MockMultipartFile("file", "photo.webp", "image/webp",
+				"RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.ISO_8859_1));
+
+		ImageDerivativeService.ImageDerivatives derivatives = service.process(webp);
+
+		assertThat(imageStore.uploadCount).hasValue(1);
+		assertThat(derivatives.getCard()).isNull();
+		assertThat(derivatives.getThumbnail()).isNull();
+	}
+
+	private static MockMultipartFile jpeg(int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		image.setRGB(0, 0, 0xFF0000);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "jpg", out);
+		return new MockMultipartFile("file", "photo.jpg", "image/jpeg", out.toByteArray());
+	}
+
+	// Records the dimensions of every decodable file it is asked to store
+	private static class RecordingImageStore implements ImageStore {
+
+		private final List<Dimension> uploadedSizes = new CopyOnWriteArrayList<>();
+		private final AtomicInteger uploadCount = new AtomicInteger();
+		private final List<String> uploadThreads = new CopyOnWriteArrayList<>();
+
+		@Override
+		public StoredImage upload(Path file, String filename) throws IOException {
+			uploadCount.incrementAndGet();
+			uploadThreads.add(Thread.currentThread().getName());
+			BufferedImage image = ImageIO.read(file.toFile());
+			if (image != null) {
+				uploadedSizes.add(new Dimension(image.getWidth(), image.getHeight()));
+			}
+			String publicId = "test/" + UUID.randomUUID();
+			return new StoredImage("https://images.test/" + publicId + ".jpg", publicId);
+		}
+
+		@Override
+		public void delete(String publicId) {
+		}
+	}
+}
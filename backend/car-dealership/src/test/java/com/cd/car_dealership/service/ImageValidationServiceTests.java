@@ -0,0 +1,93 @@
+package com.cd.car_dealership.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ImageValidationServiceTests {
+
+	private final ImageValidationService imageValidationService = new ImageValidationService();
+
+	@Test
+	void acceptsRealImagesWithinLimits() throws IOException {
+		imageValidationService.validateImage(encoded("jpg", 1600, 1200, "car.jpg", "image/jpeg"));
+		imageValidationService.validateImage(encoded("png", 4000, 10, "car.png", "image/png"));
+		imageValidationService.validateImage(encoded("gif", 320, 200, "car.gif", "image/gif"));
+	}
+
+	@Test
+	void rejectsImagesLargerThanTheLimit() throws IOException {
+		MockMultipartFile wide = encoded("png", 4001, 10, "car.png", "image/png");
+
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> imageValidationService.validateImage(wide))
+				.withMessageContaining("4001x10");
+	}
+
+	@Test
+	void rejectsContentThatOnlyClaimsToBeAnImage() {
+		MockMultipartFile fake = new MockMultipartFile("file", "car.jpg", "image/jpeg",
+				"MZ this is not a picture".getBytes(StandardCharsets.US_ASCII));
+		MockMultipartFile truncated = new MockMultipartFile("file", "car.jpg", "image/jpeg",
+				new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0x00});
+
+		assertThatIllegalArgumentException().isThrownBy(() -> imageValidationService.validateImage(fake));
+		assertThatIllegalArgumentException().isThrownBy(() -> imageValidationService.validateImage(truncated));
+	}
+
+	@Test
+	void readsWebpDimensionsFromEveryChunkType() throws IOException {
+		byte[] extended = webp("VP8X");
+		extended[24] = (byte) 0x87; // 5000 - 1 = 0x1387
+		extended[25] = 0x13;
+		extended[27] = 0x57; // 600 - 1 = 0x257
+		extended[28] = 0x02;
+
+		byte[] lossy = webp("VP8 ");
+		lossy[23] = (byte) 0x9D;
+		lossy[24] = 0x01;
+		lossy[25] = 0x2A;
+		lossy[26] = 0x20; // 800 = 0x320
+		lossy[27] = 0x03;
+		lossy[28] = 0x58; // 600 = 0x258
+		lossy[29] = 0x02;
+
+		byte[] lossless = webp("VP8L");
+		long packed = (1024 - 1) | ((long) (768 - 1) << 14);
+		lossless[20] = 0x2F;
+		for (int i = 0; i < 4; i++) {
+			lossless[21 + i] = (byte) (packed >> (8 * i));
+		}
+
+		assertThat(ImageHeaders.read(new ByteArrayInputStream(extended)))
+				.hasValue(new ImageHeaders.ImageHeader(ImageHeaders.Format.WEBP, 5000, 600));
+		assertThat(ImageHeaders.read(new ByteArrayInputStream(lossy)))
+				.hasValue(new ImageHeaders.ImageHeader(ImageHeaders.Format.WEBP, 800, 600));
+		assertThat(ImageHeaders.read(new ByteArrayInputStream(lossless)))
+				.hasValue(new ImageHeaders.ImageHeader(ImageHeaders.Format.WEBP, 1024, 768));
+	}
+
+	private static MockMultipartFile encoded(String format, int width, int height, String filename, String contentType)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, out);
+		return new MockMultipartFile("file", filename, contentType, out.toByteArray());
+	}
+
+	private static byte[] webp(String chunk) {
+		byte[] bytes = new byte[40];
+		System.arraycopy("RIFF".getBytes(StandardCharsets.US_ASCII), 0, bytes, 0, 4);
+		System.arraycopy("WEBP".getBytes(StandardCharsets.US_ASCII), 0, bytes, 8, 4);
+		System.arraycopy(chunk.getBytes(StandardCharsets.US_ASCII), 0, bytes, 12, 4);
+		return bytes;
+	}
+}
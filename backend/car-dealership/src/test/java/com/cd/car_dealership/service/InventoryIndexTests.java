@@ -0,0 +1,136 @@
+package com.cd.car_dealership.service;
+
+import com.cd.car_dealership.dto.CarDTO;
+import com.cd.car_dealership.dto.CarSearchCriteria;
+import com.cd.car_dealership.dto.FacetCountDTO;
+import com.cd.car_dealership.dto.InventoryFacetsDTO;
+import com.cd.car_dealership.repository.CarRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InventoryIndexTests {
+
+	private final CarRepository carRepository = mock(CarRepository.class);
+	private final InventoryIndex index = new InventoryIndex(carRepository, mock(PlatformTransactionManager.class));
+
+	@Test
+	void rebuildsFacetsFromTheDatabase() {
+		when(carRepository.streamAll()).thenReturn(Stream.of(
+				car(1L, "BMW", "Diesel", 2018, "25000.00", 80000, 2.0),
+				car(2L, "BMW", "Gasoline", 2021, "41000.50", 20000, 3.0),
+				car(3L, "Audi", "Diesel", 2015, "12999.99", 150000, 1.6)));
+
+		index.rebuild();
+
+		InventoryFacetsDTO facets = index.facets();
+		assertThat(facets.getTotalCars()).isEqualTo(3);
+		assertThat(facets.getBrands()).containsExactly(new FacetCountDTO("Audi", 1), new FacetCountDTO("BMW", 2));
+		assertThat(facets.getFuelTypes()).containsExactly(new FacetCountDTO("Diesel", 2), new FacetCountDTO("Gasoline", 1));
+		assertThat(facets.getMinYear()).isEqualTo(2015);
+		assertThat(facets.getMaxYear()).isEqualTo(2021);
+		assertThat(facets.getMinPrice()).isEqualByComparingTo("12999.99");
+		assertThat(facets.getMaxPrice()).isEqualByComparingTo("41000.50");
+		assertThat(facets.getMinEngineCapacity()).isEqualTo(1.6);
+		assertThat(index.brands()).containsExactly("Audi", "BMW");
+	}
+
+	@Test
+	void upsertAddsAndReplacesRows() {
+		index.upsert(car(1L, "BMW", "Diesel", 2018, "25000.00", 80000, 2.0));
+		index.upsert(car(2L, "Audi", "Diesel", 2015, "13000.00", 150000, 1.6));
+
+		index.upsert(car(1L, "Volvo", "Hybrid", 2022, "52000.00", 5000, 2.0));
+
+		assertThat(index.brands()).containsExactly("Audi", "Volvo");
+		assertThat(index.fuelTypes()).containsExactly("Diesel", "Hybrid");
+		assertThat(index.facets().getTotalCars()).isEqualTo(2);
+		assertThat(index.mayMatch(CarSearchCriteria.builder().brand("bmw").build())).isFalse();
+	}
+
+	@Test
+	void removeDropsTheRowAndKeepsTheOthersSearchable() {
+		index.upsert(car(1L, "BMW", "Diesel", 2018, "25000.00", 80000, 2.0));
+		index.upsert(car(2L, "Audi", "Diesel", 2015, "13000.00", 150000, 1.6));
+		index.upsert(car(3L, "Skoda", "Gasoline", 2020, "18000.00", 40000, 1.5));
+
+		index.remove(1L);
+		index.remove(99L);
+
+		assertThat(index.brands()).containsExactly("Audi", "Skoda");
+		assertThat(index.facets().getTotalCars()).isEqualTo(2);
+		assertThat(index.mayMatch(CarSearchCriteria.builder().brand("BMW").build())).isFalse();
+		// The last row moved into the freed slot must still be found by its attributes
+		assertThat(index.mayMatch(CarSearchCriteria.builder().brand("skoda").minYear(2020).build())).isTrue();
+	}
+
+	@Test
+	void mayMatchChecksEveryIndexedFilter() {
+		index.upsert(car(1L, "BMW", "Diesel", 2018, "25000.00", 80000, 2.0));
+
+		assertThat(index.mayMatch(new CarSearchCriteria())).isTrue();
+		assertThat(index.mayMatch(CarSearchCriteria.builder().brand(" m ").fuelType("DIES").build())).isTrue();
+		assertThat(index.mayMatch(CarSearchCriteria.builder().fuelType("Electric").build())).isFalse();
+		assertThat(index.mayMatch(CarSearchCriteria.builder().minYear(2019).build())).isFalse();
+		assertThat(index.mayMatch(CarSearchCriteria.builder().maxMileage(79999).build())).isFalse();
+		assertThat(index.mayMatch(CarSearchCriteria.builder().minEngineCapacity(2.1).build())).isFalse();
+		// Price bounds are compared in cents, rounded towards the inside of the range
+		assertThat(index.mayMatch(CarSearchCriteria.builder().maxPrice(new BigDecimal("25000.001")).build())).isTrue();
+		assertThat(index.mayMatch(CarSearchCriteria.builder().minPrice(new BigDecimal("25000.001")).build())).isFalse();
+		// Model and free text are not indexed and never rule a search out
+		assertThat(index.mayMatch(CarSearchCriteria.builder().model("nothing like it").q("zzz").build())).isTrue();
+	}
+
+	@Test
+	void emptyIndexMatchesNothingAndHasNoRanges() {
+		InventoryFacetsDTO facets = index.facets();
+
+		assertThat(facets.getTotalCars()).isZero();
+		assertThat(facets.getMinYear()).isNull();
+		assertThat(index.mayMatch(new CarSearchCriteria())).isFalse();
+	}
+
+	@Test
+	void rebuildKeepsChangesCommittedWhileTheTableIsStreamed() {
+		CarDTO committedDuringRebuild = car(2L, "Audi", "Diesel", 2015, "13000.00", 150000, 1.6);
+		when(carRepository.streamAll()).thenReturn(Stream.of(car(1L, "BMW", "Diesel", 2018, "25000.00", 80000, 2.0))
+				.peek(car -> {
+					// Written after the stream's snapshot, so the stream itself never returns it
+					index.upsert(committedDuringRebuild);
+					index.remove(1L);
+				}));
+
+		index.rebuild();
+
+		assertThat(index.brands()).containsExactly("Audi");
+		assertThat(index.facets().getTotalCars()).isEqualTo(1);
+	}
+
+	@Test
+	void searchesAlwaysReachTheDatabaseWhenSkippingIsDisabled() {
+		ReflectionTestUtils.setField(index, "skipUnmatchedSearches", false);
+
+		assertThat(index.mayMatch(CarSearchCriteria.builder().brand("BMW").build())).isTrue();
+	}
+
+	private static CarDTO car(Long id, String brand, String fuelType, int year, String price, int mileage, double engineCapacity) {
+		return CarDTO.builder()
+				.id(id)
+				.brand(brand)
+				.model("Model")
+				.fuelType(fuelType)
+				.transmission("Manual")
+				.productionYear(year)
+				.price(new BigDecimal(price))
+				.mileage(mileage)
+				.engineCapacity(engineCapacity)
+				.build();
+	}
+}
@@ -0,0 +1,118 @@
+package com.cd.car_dealership.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtServiceTests {
+
+	private static final String SECRET = secret("0123456789abcdef0123456789abcdef");
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final JwtService jwtService = jwtService(meterRegistry, SECRET, 3600000);
+
+	@Test
+	void verifiesATokenOnceAndServesRepeatsFromTheCache() {
+		String token = jwtService.generateToken("admin", Map.of("role", "ADMIN"));
+
+		assertThat(jwtService.verify(token)).hasValueSatisfying(claims -> assertThat(claims.getSubject()).isEqualTo("admin"));
+		assertThat(jwtService.extractUsername(token)).isEqualTo("admin");
+		assertThat(jwtService.extractRole(token)).isEqualTo("ADMIN");
+
+		assertThat(verifications("verified")).isEqualTo(1);
+		assertThat(verifications("cache_hit")).isEqualTo(2);
+	}
+
+	@Test
+	void rejectsExpiredTokens() {
+		String expired = jwtService(new SimpleMeterRegistry(), SECRET, -1000).generateToken("admin", Map.of("role", "ADMIN"));
+
+		assertThat(jwtService.verify(expired)).isEmpty();
+		assertThat(jwtService.isTokenValid(expired)).isFalse();
+		assertThat(jwtService.extractUsername(expired)).isNull();
+		assertThat(jwtService.extractRole(expired)).isNull();
+		assertThat(verifications("rejected")).isEqualTo(4);
+	}
+
+	@Test
+	void rejectsTamperedSignaturesAndPayloads() {
+		String token = jwtService.generateToken("user", Map.of("role", "USER"));
+		String[] parts = token.split("\\.");
+		assertThat(jwtService.verify(token)).isPresent();
+
+		String signature = parts[2];
+		String forgedSignature = (signature.charAt(0) == 'A' ? "B" : "A") + signature.substring(1);
+		String escalatedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+				new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+						.replace("\"USER\"", "\"ADMIN\"").getBytes(StandardCharsets.UTF_8));
+		String otherKey = jwtService(new SimpleMeterRegistry(), secret("another secret of thirty-two byte"), 3600000)
+				.generateToken("user", Map.of("role", "USER"));
+
+		assertThat(jwtService.verify(parts[0] + "." + parts[1] + "." + forgedSignature)).isEmpty();
+		assertThat(jwtService.verify(parts[0] + "." + escalatedPayload + "." + signature)).isEmpty();
+		assertThat(jwtService.extractRole(parts[0] + "." + escalatedPayload + "." + signature)).isNull();
+		assertThat(jwtService.verify(otherKey)).isEmpty();
+		assertThat(jwtService.verify("not-a-token")).isEmpty();
+		assertThat(jwtService.verify(null)).isEmpty();
+	}
+
+	@Test
+	void cachedTokenIsRejectedOnceItExpires() throws Exception {
+		JwtService shortLived = jwtService(meterRegistry, SECRET, 1000);
+		String token = shortLived.generateToken("admin", Map.of("role", "ADMIN"));
+		assertThat(shortLived.verify(token)).isPresent();
+		assertThat(shortLived.verify(token)).isPresent();
+		assertThat(verifications("cache_hit")).isEqualTo(1);
+
+		// The expiry claim has whole-second precision, so the token has expired after at most a second
+		Thread.sleep(1100);
+		Cache<?, ?> verifiedTokens = verifiedTokens(shortLived);
+		verifiedTokens.cleanUp();
+		assertThat(verifiedTokens.estimatedSize()).isZero();
+
+		assertThat(shortLived.verify(token)).isEmpty();
+		assertThat(shortLived.extractUsername(token)).isNull();
+		assertThat(verifications("cache_hit")).isEqualTo(1);
+		assertThat(verifications("rejected")).isEqualTo(2);
+	}
+
+	@Test
+	void keepsAtMostTheConfiguredNumberOfTokens() {
+		for (int i = 0; i < 250; i++) {
+			assertThat(jwtService.verify(jwtService.generateToken("user" + i, Map.of("role", "USER")))).isPresent();
+		}
+
+		Cache<?, ?> verifiedTokens = verifiedTokens(jwtService);
+		verifiedTokens.cleanUp();
+		assertThat(verifiedTokens.estimatedSize()).isEqualTo(100);
+	}
+
+	private long verifications(String result) {
+		return meterRegistry.get("jwt.verification").tag("result", result).timer().count();
+	}
+
+	private static Cache<?, ?> verifiedTokens(JwtService jwtService) {
+		return (Cache<?, ?>) ReflectionTestUtils.getField(jwtService, "verifiedTokens");
+	}
+
+	private static JwtService jwtService(MeterRegistry meterRegistry, String secret, long expirationMs) {
+		JwtService jwtService = new JwtService(meterRegistry);
+		ReflectionTestUtils.setField(jwtService, "secret", secret);
+		ReflectionTestUtils.setField(jwtService, "expirationMs", expirationMs);
+		ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", 100);
+		jwtService.init();
+		return jwtService;
+	}
+
+	private static String secret(String key) {
+		return Base64.getEncoder().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+	}
+}
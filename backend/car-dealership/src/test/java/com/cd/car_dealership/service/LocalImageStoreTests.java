@@ -0,0 +1,55 @@
+package com.cd.car_dealership.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalImageStoreTests {
+
+	@TempDir
+	Path root;
+
+	@TempDir
+	Path uploads;
+
+	private final LocalImageStore imageStore = new LocalImageStore();
+
+	@BeforeEach
+	void setUp() throws Exception {
+		ReflectionTestUtils.setField(imageStore, "rootDirectory", root.toString());
+		ReflectionTestUtils.setField(imageStore, "baseUrl", "/api/images");
+		imageStore.init();
+	}
+
+	@Test
+	void identicalUploadsShareOneContentAddressedFile() throws Exception {
+		ImageStore.StoredImage first = imageStore.upload(file("car"), "car.JPG");
+		ImageStore.StoredImage second = imageStore.upload(file("car"), "other.jpg");
+
+		assertThat(first.getPublicId()).matches("[0-9a-f]{2}/[0-9a-f]{64}\\.jpg");
+		assertThat(second).isEqualTo(first);
+		assertThat(first.getImageUrl()).isEqualTo("/api/images/" + first.getPublicId());
+		assertThat(Files.readString(root.resolve(first.getPublicId()))).isEqualTo("car");
+	}
+
+	@Test
+	void deletesFilesIdempotently() throws Exception {
+		String publicId = imageStore.upload(file("car"), "car.jpg").getPublicId();
+
+		imageStore.delete(publicId);
+		imageStore.delete(publicId);
+
+		assertThat(root.resolve(publicId)).doesNotExist();
+	}
+
+	private Path file(String content) throws Exception {
+		return Files.writeString(Files.createTempFile(uploads, "upload-", ".tmp"), content, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,130 @@
+package com.cd.car_dealership.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResilientImageStoreTests {
+
+	private static final Path FILE = Path.of("car.jpg");
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ScriptedImageStore backend = new ScriptedImageStore();
+	private ResilientImageStore imageStore;
+
+	@AfterEach
+	void tearDown() {
+		backend.release.countDown();
+		imageStore.shutdown();
+	}
+
+	@Test
+	void opensCircuitAfterConsecutiveFailuresAndClosesAfterTrialCall() throws Exception {
+		imageStore = store(1, 1, Duration.ofSeconds(5), Duration.ofMillis(200));
+		backend.failing = true;
+
+		for (int i = 0; i < 3; i++) {
+			assertThatThrownBy(() -> imageStore.upload(FILE, "car.jpg")).hasMessage("backend down");
+		}
+		assertThatThrownBy(() -> imageStore.upload(FILE, "car.jpg")).isInstanceOf(ImageStoreUnavailableException.class);
+		assertThat(backend.calls).hasValue(3);
+		assertThat(rejections("circuit_open")).isEqualTo(1);
+
+		Thread.sleep(250);
+		backend.failing = false;
+		assertThat(imageStore.upload(FILE, "car.jpg").getPublicId()).isEqualTo("stored");
+		assertThat(imageStore.upload(FILE, "car.jpg").getPublicId()).isEqualTo("stored");
+	}
+
+	@Test
+	void timesOutSlowCallsInsteadOfBlockingTheCaller() {
+		imageStore = store(1, 1, Duration.ofMillis(100), Duration.ofSeconds(30));
+		backend.blocking = true;
+
+		long start = System.nanoTime();
+		assertThatThrownBy(() -> imageStore.upload(FILE, "car.jpg"))
+				.isInstanceOf(ImageStoreUnavailableException.class)
+				.hasMessageContaining("timed out");
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+		assertThat(rejections("timeout")).isEqualTo(1);
+	}
+
+	@Test
+	void rejectsCallsBeyondPoolAndQueueCapacity() throws Exception {
+		imageStore = store(1, 1, Duration.ofSeconds(30), Duration.ofSeconds(30));
+		backend.blocking = true;
+
+		Thread first = new Thread(() -> uploadQuietly());
+		Thread second = new Thread(() -> uploadQuietly());
+		first.start();
+		backend.started.await();
+		second.start();
+		while (meterRegistry.get("executor.queued").tag("name", "image-store").gauge().value() < 1) {
+			Thread.onSpinWait();
+		}
+
+		assertThatThrownBy(() -> imageStore.upload(FILE, "car.jpg"))
+				.isInstanceOf(ImageStoreUnavailableException.class)
+				.hasMessageContaining("saturated");
+		assertThat(rejections("bulkhead_full")).isEqualTo(1);
+
+		backend.release.countDown();
+		first.join();
+		second.join();
+	}
+
+	private ResilientImageStore store(int concurrency, int queueCapacity, Duration timeout, Duration openDuration) {
+		return new ResilientImageStore(backend, concurrency, queueCapacity, timeout, 3, openDuration, meterRegistry);
+	}
+
+	private double rejections(String reason) {
+		return meterRegistry.get("image.store.rejections").tag("reason", reason).counter().count();
+	}
+
+	private void uploadQuietly() {
+		try {
+			imageStore.upload(FILE, "car.jpg");
+		} catch (IOException e) {
+			// Only the third caller's outcome matters
+		}
+	}
+
+	private static class ScriptedImageStore implements ImageStore {
+
+		private final AtomicInteger calls = new AtomicInteger();
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		private volatile boolean failing;
+		private volatile boolean blocking;
+
+		@Override
+		public StoredImage upload(Path file, String filename) throws IOException {
+			calls.incrementAndGet();
+			started.countDown();
+			if (blocking) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new IOException("cancelled", e);
+				}
+			}
+			if (failing) {
+				throw new IOException("backend down");
+			}
+			return new StoredImage("https://images.test/stored.jpg", "stored");
+		}
+
+		@Override
+		public void delete(String publicId) {
+		}
+	}
+}
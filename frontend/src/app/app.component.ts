@@ -21,6 +21,8 @@ interface Car {
   createdAt?: Date;
   updatedAt?: Date;
   imageGallery?: string[];
+  cardGallery?: string[];
+  thumbnailGallery?: string[];
 }
 
 interface User {
@@ -245,18 +245,11 @@ export class CarFormComponent implements OnInit, OnDestroy {
   private async uploadImagesInBackground(carId: number, files: File[], token: string) {
     console.log(`Starting background upload of ${files.length} images for car ${carId}`);
 
-    for (let i = 0; i < files.length; i++) {
-      const file = files[i];
-
-      try {
-        await this.carService.addImage(carId, file, token);
-      } catch (err) {
-        console.error(`Failed to upload image ${file.name}:`, err);
-      }
-
-      if (i < files.length - 1) {
-        await new Promise((resolve) => setTimeout(resolve, 100));
-      }
+    try {
+      // Single request, the backend uploads the files concurrently
+      await this.carService.addImages(carId, files, token);
+    } catch (err) {
+      console.error(`Failed to upload images for car ${carId}:`, err);
     }
 
     console.log(`Background upload completed for car ${carId}`);
@@ -10,6 +10,9 @@ import { Component, input, output } from '@angular/core';
 })
 export class ImageCarouselComponent {
   images = input<string[]>([]);
+  // Downscaled variants in the same order as images; missing entries fall back to the full image
+  cardImages = input<string[] | undefined>(undefined);
+  thumbnailImages = input<string[] | undefined>(undefined);
   isAdmin = input<boolean>(false);
   carId = input<number | null>(null);
   showThumbnails = input<boolean>(true);
@@ -29,6 +32,14 @@ export class ImageCarouselComponent {
     return !!imgs && imgs.length > 1;
   }
 
+  cardUrl(index: number): string {
+    return this.cardImages()?.[index] || this.images()[index];
+  }
+
+  thumbnailUrl(index: number): string {
+    return this.thumbnailImages()?.[index] || this.images()[index];
+  }
+
   nextImage(): void {
     const imgs = this.images();
     if (imgs && imgs.length > 1) {
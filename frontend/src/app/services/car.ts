@@ -14,6 +14,8 @@ export interface CarModel {
   createdAt?: Date;
   updatedAt?: Date;
   imageGallery?: string[];
+  cardGallery?: string[];
+  thumbnailGallery?: string[];
 }
 
 @Injectable({
@@ -73,6 +75,17 @@ export class Car {
     if (!response.ok) throw new Error('Failed to upload image');
   }
 
+  async addImages(id: number, files: File[], token: string): Promise<void> {
+    const formData = new FormData();
+    files.forEach((file) => formData.append('files', file));
+    const response = await fetch(`${this.baseUrl}/${id}/gallery/batch`, {
+      method: 'POST',
+      headers: { Authorization: `Bearer ${token}` },
+      body: formData,
+    });
+    if (!response.ok) throw new Error('Failed to upload images');
+  }
+
   async removeImage(id: number, imageUrl: string, token: string): Promise<void> {
     const params = new URLSearchParams({ imageUrl });
     const response = await fetch(`${this.baseUrl}/${id}/gallery?${params.toString()}`, {